@@ -0,0 +1,35 @@
+package com.gestion_reservas.abm.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Caché de segundo nivel de Hibernate para Usuario (y la caché de consultas), con Ehcache en el mismo
+ * proceso; Sala y Articulo se leen de CacheCatalogo. Las regiones y sus límites están en ehcache.xml. Cada contexto de Spring crea su
+ * propio CacheManager: con el compartido por JCache, dos contextos sobre bases distintas (como en las
+ * pruebas) se mezclarían las entidades.
+ */
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheSegundoNivel() {
+        EhcacheCachingProvider proveedor = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuracion = new XmlConfiguration(getClass().getResource("/ehcache.xml"));
+        return proveedor.getCacheManager(URI.create("urn:abm:hibernate:" + UUID.randomUUID()), configuracion);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer usarCacheSegundoNivel(CacheManager cacheSegundoNivel) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheSegundoNivel);
+    }
+}
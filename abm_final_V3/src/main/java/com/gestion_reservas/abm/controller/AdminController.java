@@ -1,21 +1,33 @@
 package com.gestion_reservas.abm.controller;
 
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.dto.EstadisticasDisponibilidad;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.dto.ReservaResumen;
+import com.gestion_reservas.abm.dto.ResultadoReserva;
+import com.gestion_reservas.abm.dto.SolicitudReserva;
 import com.gestion_reservas.abm.model.*;
 import com.gestion_reservas.abm.service.*;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int MAX_RESERVAS_POR_LOTE = 1000;
+
     @Autowired
     private SalaService salaService;
 
@@ -44,11 +56,16 @@ public class AdminController {
             @RequestParam(required = false) String usuario,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDeFecha,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "" + Pagina.TAMANO_POR_DEFECTO) int tamano,
             HttpSession session, Model model) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
 
-        List<HistorialReserva> historial = historialReservaService.findHistorial(usuario, fechaDesde, fechaHasta);
-        model.addAttribute("historial", historial);
+        Pagina<HistorialReserva> pagina = historialReservaService.findHistorial(usuario, fechaDesde, fechaHasta, antesDeFecha, antesDeId, tamano);
+        model.addAttribute("historial", pagina.elementos());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("archivadasAntesDe", historialReservaService.archivadasOmitidasAntesDe(fechaDesde, fechaHasta));
 
         return "admin-historial";
     }
@@ -56,9 +73,13 @@ public class AdminController {
     // --- Gestión de Usuarios ---
 
     @GetMapping("/usuarios")
-    public String manageUsuarios(HttpSession session, Model model) {
+    public String manageUsuarios(@RequestParam(required = false) Long despuesDeId,
+                                 @RequestParam(defaultValue = "" + Pagina.TAMANO_POR_DEFECTO) int tamano,
+                                 HttpSession session, Model model) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
-        model.addAttribute("usuarios", usuarioService.findAll());
+        Pagina<Usuario> pagina = usuarioService.listarPagina(despuesDeId, tamano);
+        model.addAttribute("usuarios", pagina.elementos());
+        model.addAttribute("pagina", pagina);
         return "admin-usuarios";
     }
 
@@ -72,12 +93,7 @@ public class AdminController {
     @PutMapping("/usuarios/guardar")
     public String saveUsuario(@ModelAttribute Usuario usuario, HttpSession session) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
-        usuarioService.findById(usuario.getId()).ifPresent(existingUser -> {
-            if (usuario.getPassword() == null || usuario.getPassword().isEmpty()) {
-                usuario.setPassword(existingUser.getPassword());
-            }
-        });
-        usuarioService.updateUser(usuario);
+        usuarioService.updateUser(usuario); // Sin contraseña en el formulario, conserva la actual
         return "redirect:/admin/usuarios";
     }
 
@@ -94,9 +110,13 @@ public class AdminController {
     // --- Gestión de Salas ---
 
     @GetMapping("/salas")
-    public String manageSalas(HttpSession session, Model model) {
+    public String manageSalas(@RequestParam(required = false) Long despuesDeId,
+                              @RequestParam(defaultValue = "" + Pagina.TAMANO_POR_DEFECTO) int tamano,
+                              HttpSession session, Model model) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
-        model.addAttribute("salas", salaService.findAll());
+        Pagina<Sala> pagina = salaService.listarPagina(despuesDeId, tamano);
+        model.addAttribute("salas", pagina.elementos());
+        model.addAttribute("pagina", pagina);
         return "admin-salas";
     }
 
@@ -128,12 +148,33 @@ public class AdminController {
         return "redirect:/admin/salas";
     }
 
+    // Aciertos y fallos de las copias en memoria de los catálogos y de los usuarios con sesión
+    @GetMapping("/catalogos/cache")
+    @ResponseBody
+    public ResponseEntity<Map<String, EstadisticasCache>> verCacheDeCatalogos(HttpSession session) {
+        if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        return ResponseEntity.ok(Map.of("salas", salaService.estadisticasCache(), "articulos", articuloService.estadisticasCache(),
+                "principales", usuarioService.estadisticasPrincipales()));
+    }
+
+    // Consultas de disponibilidad resueltas desde el índice y revalidaciones que terminaron en 304
+    @GetMapping("/disponibilidad/consultas")
+    @ResponseBody
+    public ResponseEntity<EstadisticasDisponibilidad> verConsultasDeDisponibilidad(HttpSession session) {
+        if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        return ResponseEntity.ok(reservaService.estadisticasDisponibilidad());
+    }
+
     // --- Gestión de Artículos ---
 
     @GetMapping("/articulos")
-    public String manageArticulos(HttpSession session, Model model) {
+    public String manageArticulos(@RequestParam(required = false) Long despuesDeId,
+                                  @RequestParam(defaultValue = "" + Pagina.TAMANO_POR_DEFECTO) int tamano,
+                                  HttpSession session, Model model) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
-        model.addAttribute("articulos", articuloService.findAll());
+        Pagina<Articulo> pagina = articuloService.listarPagina(despuesDeId, tamano);
+        model.addAttribute("articulos", pagina.elementos());
+        model.addAttribute("pagina", pagina);
         return "admin-articulos";
     }
 
@@ -168,12 +209,25 @@ public class AdminController {
     // --- Gestión de Reservas ---
 
     @GetMapping("/reservas")
-    public String manageReservas(HttpSession session, Model model) {
-        if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
-        model.addAttribute("reservas", reservaService.findAll());
+    public String manageReservas(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesDeInicio,
+                                 @RequestParam(required = false) Long despuesDeId,
+                                 @RequestParam(defaultValue = "" + Pagina.TAMANO_POR_DEFECTO) int tamano,
+                                 HttpSession session, Model model) {
+        if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
+        Pagina<ReservaResumen> pagina = reservaService.listarReservas(despuesDeInicio, despuesDeId, tamano);
+        model.addAttribute("reservas", pagina.elementos());
+        model.addAttribute("pagina", pagina);
         return "admin-reservas";
     }
 
+    @PostMapping("/reservas/lote")
+    @ResponseBody
+    public ResponseEntity<List<ResultadoReserva>> crearReservasEnLote(@RequestBody List<SolicitudReserva> solicitudes, HttpSession session) {
+        if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        if (solicitudes.size() > MAX_RESERVAS_POR_LOTE) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        return ResponseEntity.ok(reservaService.crearReservasEnLote(solicitudes));
+    }
+
     @DeleteMapping("/reservas/cancelar/{id}")
     public String cancelReserva(@PathVariable Long id, HttpSession session) {
         if (session.getAttribute("rol") != Rol.ADMINISTRADOR) return "redirect:/login";
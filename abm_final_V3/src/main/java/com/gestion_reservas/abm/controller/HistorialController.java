@@ -1,11 +1,17 @@
 package com.gestion_reservas.abm.controller;
 
-import com.gestion_reservas.abm.model.HistorialReserva;
+import com.gestion_reservas.abm.dto.CambiosHistorial;
+import com.gestion_reservas.abm.dto.CoincidenciaHistorial;
+import com.gestion_reservas.abm.dto.EstadisticasHistorial;
 import com.gestion_reservas.abm.service.HistorialReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -13,11 +19,46 @@ import java.util.List;
 @RequestMapping("/api/historial")
 public class HistorialController {
 
+    public static final String ENCABEZADO_CURSOR = "X-Cursor-Historial";
+
     @Autowired
     private HistorialReservaService historialReservaService;
 
-    @GetMapping
-    public List<HistorialReserva> obtenerTodoElHistorial() {
-        return historialReservaService.findAll();
+    // Exportación completa en NDJSON: se escribe mientras se lee, sin armar la lista entera en memoria.
+    // El encabezado trae el cursor para seguir con /cambios desde justo después de lo exportado.
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> obtenerTodoElHistorial() {
+        long hastaId = historialReservaService.ultimoIdEscrito();
+        StreamingResponseBody cuerpo = salida -> historialReservaService.exportar(salida, hastaId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(ENCABEZADO_CURSOR, HistorialReservaService.cursorDe(hastaId))
+                .body(cuerpo);
+    }
+
+    // Cantidad de reservas por sala, usuario y artículo: GROUP BY sobre la tabla más las cantidades de los meses archivados
+    @GetMapping("/estadisticas")
+    public EstadisticasHistorial obtenerEstadisticas() {
+        return historialReservaService.estadisticas();
+    }
+
+    // Búsqueda por palabras (prefijos) en usuario, sala y artículos; primero los resultados más relevantes.
+    // Solo busca en los meses que siguen en la tabla, no en los archivados.
+    @GetMapping("/buscar")
+    public List<CoincidenciaHistorial> buscar(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        return historialReservaService.buscar(q, limite);
+    }
+
+    // Sincronización incremental: solo lo escrito después del cursor recibido en la respuesta anterior,
+    // incluido lo que ya se haya archivado
+    @GetMapping("/cambios")
+    public ResponseEntity<CambiosHistorial> obtenerCambios(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HistorialReservaService.MAX_CAMBIOS_POR_PEDIDO) int limite) {
+        try {
+            return ResponseEntity.ok(historialReservaService.cambiosDesde(cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
@@ -1,5 +1,8 @@
 package com.gestion_reservas.abm.controller;
 
+import com.gestion_reservas.abm.dto.DisponibilidadDia;
+import com.gestion_reservas.abm.dto.HorarioLibre;
+import com.gestion_reservas.abm.dto.SalaLibre;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.Reserva;
 import com.gestion_reservas.abm.model.Sala;
@@ -11,22 +14,30 @@ import com.gestion_reservas.abm.service.UsuarioService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Controller
 public class ReservaController {
 
+    private static final int ALTERNATIVAS_SUGERIDAS = 3;
+
     @Autowired
     private ReservaService reservaService;
 
@@ -53,20 +64,65 @@ public class ReservaController {
     @ResponseBody
     public ResponseEntity<List<Integer>> getHorariosOcupados(
             @RequestParam Long salaId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
-        List<Integer> horariosOcupados = reservaService.getHorariosOcupados(salaId, fecha);
-        return ResponseEntity.ok(horariosOcupados);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            WebRequest request) {
+        return responderConVersion(reservaService.versionHorariosOcupados(salaId, fecha), request,
+                () -> reservaService.getHorariosOcupados(salaId, fecha));
     }
 
     @GetMapping("/api/reservas/articulos-ocupados")
     @ResponseBody
     public ResponseEntity<List<Long>> getArticulosOcupados(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
-            @RequestParam int hora) {
+            @RequestParam int hora,
+            WebRequest request) {
         LocalDateTime fechaHoraInicio = LocalDateTime.of(fecha, LocalTime.of(hora, 0));
         LocalDateTime fechaHoraFin = fechaHoraInicio.plusHours(1);
-        List<Long> ocupadosIds = reservaService.getOcupadosArticuloIds(fechaHoraInicio, fechaHoraFin);
-        return ResponseEntity.ok(ocupadosIds);
+        return responderConVersion(reservaService.versionArticulosOcupados(fechaHoraInicio), request,
+                () -> reservaService.getOcupadosArticuloIds(fechaHoraInicio, fechaHoraFin));
+    }
+
+    // Todo el día en una sola llamada: horas ocupadas por sala y artículos ocupados por hora
+    @GetMapping("/api/reservas/disponibilidad-dia")
+    @ResponseBody
+    public ResponseEntity<DisponibilidadDia> getDisponibilidadDia(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            WebRequest request) {
+        return responderConVersion(reservaService.versionDisponibilidadDia(fecha), request,
+                () -> reservaService.getDisponibilidadDia(fecha));
+    }
+
+    // Salas con capacidad suficiente libres en todo el rango, ordenadas por mejor ajuste
+    @GetMapping("/api/salas/libres")
+    @ResponseBody
+    public ResponseEntity<List<SalaLibre>> buscarSalasLibres(
+            @RequestParam(defaultValue = "1") int capacidad,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        try {
+            List<SalaLibre> libres = reservaService.buscarSalasLibres(capacidad, desde, hasta).stream()
+                    .map(SalaLibre::de)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(libres);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Próximos horarios libres para la sala y los artículos a partir de un momento dado
+    @GetMapping("/api/reservas/proximos-horarios")
+    @ResponseBody
+    public ResponseEntity<List<HorarioLibre>> buscarProximosHorarios(
+            @RequestParam Long salaId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) List<Long> articuloIds,
+            @RequestParam(defaultValue = "60") int duracionMinutos,
+            @RequestParam(defaultValue = "5") int cantidad) {
+        try {
+            return ResponseEntity.ok(reservaService.buscarProximosHorarios(salaId, articuloIds, desde, Duration.ofMinutes(duracionMinutos), cantidad));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // --- Reserva Creation and Management ---
@@ -82,7 +138,7 @@ public class ReservaController {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) return "redirect:/login";
 
-        Optional<Usuario> usuarioOpt = usuarioService.findById(userId);
+        Optional<Usuario> usuarioOpt = usuarioService.findPrincipal(userId);
         Optional<Sala> salaOpt = salaService.findById(salaId);
 
         if (!usuarioOpt.isPresent() || !salaOpt.isPresent()) {
@@ -107,6 +163,9 @@ public class ReservaController {
             return "redirect:/dashboard";
         } catch (IllegalStateException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
+            // Ofrecer directamente los próximos horarios libres para la misma sala y artículos
+            redirectAttributes.addFlashAttribute("alternativas", reservaService.buscarProximosHorarios(
+                    salaId, articulosIds, nuevaReserva.getFechaHoraInicio(), Duration.ofHours(1), ALTERNATIVAS_SUGERIDAS));
             return "redirect:/reservas/nueva";
         }
     }
@@ -115,8 +174,7 @@ public class ReservaController {
     public String showMisReservas(HttpSession session, Model model) {
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) return "redirect:/login";
-        List<Reserva> reservas = reservaService.findByUsuarioId(userId);
-        model.addAttribute("reservas", reservas);
+        model.addAttribute("reservas", reservaService.listarReservasDeUsuario(userId));
         return "mis-reservas";
     }
 
@@ -139,4 +197,16 @@ public class ReservaController {
         }
         return "redirect:/mis-reservas";
     }
+
+    /**
+     * La respuesta lleva la versión como ETag y el navegador debe revalidarla en cada uso: cuando
+     * el cliente ya tiene esa versión (If-None-Match) se contesta 304 sin armar el cuerpo.
+     */
+    private <T> ResponseEntity<T> responderConVersion(String version, WebRequest request, Supplier<T> cuerpo) {
+        if (request.checkNotModified(version)) {
+            reservaService.registrarRespuestaSinCambios();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(version).cacheControl(CacheControl.noCache()).body(cuerpo.get());
+    }
 }
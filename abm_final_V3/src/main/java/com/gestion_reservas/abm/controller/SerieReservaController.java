@@ -0,0 +1,98 @@
+package com.gestion_reservas.abm.controller;
+
+import com.gestion_reservas.abm.dto.SolicitudSerie;
+import com.gestion_reservas.abm.model.Rol;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.SerieReserva;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.service.ArticuloService;
+import com.gestion_reservas.abm.service.SalaService;
+import com.gestion_reservas.abm.service.SerieReservaService;
+import com.gestion_reservas.abm.service.UsuarioService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/reservas/series")
+public class SerieReservaController {
+
+    @Autowired
+    private SerieReservaService serieReservaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private SalaService salaService;
+
+    @Autowired
+    private ArticuloService articuloService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> crearSerie(@RequestBody SolicitudSerie solicitud, HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        Optional<Usuario> usuarioOpt = usuarioService.findPrincipal(userId);
+        Optional<Sala> salaOpt = salaService.findById(solicitud.salaId());
+        if (!usuarioOpt.isPresent() || !salaOpt.isPresent()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Usuario o Sala no encontrados."));
+        }
+
+        SerieReserva serie = new SerieReserva();
+        serie.setUsuario(usuarioOpt.get());
+        serie.setSala(salaOpt.get());
+        serie.setFechaInicio(solicitud.fechaInicio());
+        serie.setHoraInicio(solicitud.horaInicio());
+        serie.setDuracionMinutos(solicitud.duracionMinutos());
+        serie.setRepeticiones(solicitud.repeticiones());
+        serie.setExcepciones(new HashSet<>(solicitud.excepciones()));
+        if (!solicitud.articuloIds().isEmpty()) {
+            serie.setArticulos(articuloService.findAllByIds(solicitud.articuloIds()));
+        }
+
+        try {
+            SerieReserva creada = serieReservaService.crearSerie(serie);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("serieId", creada.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/excepciones")
+    public ResponseEntity<Void> cancelarOcurrencia(@PathVariable Long id,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+                                                   HttpSession session) {
+        if (!puedeModificar(id, session)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        serieReservaService.excluirOcurrencia(id, fecha);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelarSerie(@PathVariable Long id, HttpSession session) {
+        if (!puedeModificar(id, session)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        serieReservaService.deleteById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Solo el dueño de la serie o un administrador
+    private boolean puedeModificar(Long serieId, HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return false;
+        if (session.getAttribute("rol") == Rol.ADMINISTRADOR) return true;
+        return serieReservaService.findById(serieId)
+                .map(serie -> serie.getUsuario().getId().equals(userId))
+                .orElse(false);
+    }
+}
@@ -106,7 +106,7 @@ public class UsuarioController {
         if (userId == null) {
             return "redirect:/login";
         }
-        Optional<Usuario> usuarioOpt = usuarioService.findById(userId);
+        Optional<Usuario> usuarioOpt = usuarioService.findPrincipal(userId);
         if (usuarioOpt.isPresent()) {
             model.addAttribute("usuario", usuarioOpt.get());
             return "edit-profile";
@@ -128,30 +128,28 @@ public class UsuarioController {
             return "redirect:/login";
         }
 
-        Optional<Usuario> existingUserOpt = usuarioService.findById(userId);
-        if (!existingUserOpt.isPresent()) {
+        if (!usuarioService.findPrincipal(userId).isPresent()) {
             session.invalidate();
             return "redirect:/login";
         }
 
-        Usuario existingUser = existingUserOpt.get();
-
         Optional<Usuario> userWithSameUsername = usuarioService.findByUsername(username);
         if (userWithSameUsername.isPresent() && !userWithSameUsername.get().getId().equals(userId)) {
             redirectAttributes.addFlashAttribute("error", "El correo electrónico ya está en uso por otra cuenta.");
             return "redirect:/profile";
         }
 
-        existingUser.setNombre(nombre);
-        existingUser.setApellido(apellido);
-        // La fecha de nacimiento no se actualiza
-        existingUser.setUsername(username);
-        if (password != null && !password.isEmpty()) {
-            existingUser.setPassword(password);
-        }
-
-        usuarioService.updateUser(existingUser);
-        session.setAttribute("nombre", existingUser.getNombre());
+        // La copia de la sesión es compartida: los cambios van en un usuario aparte
+        Usuario cambios = new Usuario();
+        cambios.setId(userId);
+        cambios.setNombre(nombre);
+        cambios.setApellido(apellido);
+        // La fecha de nacimiento y el rol no se actualizan
+        cambios.setUsername(username);
+        cambios.setPassword(password); // Vacía conserva la actual
+
+        Usuario actualizado = usuarioService.updateUser(cambios);
+        session.setAttribute("nombre", actualizado.getNombre());
         redirectAttributes.addFlashAttribute("success", "¡Datos actualizados exitosamente!");
         return "redirect:/profile";
     }
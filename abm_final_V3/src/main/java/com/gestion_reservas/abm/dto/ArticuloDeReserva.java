@@ -0,0 +1,5 @@
+package com.gestion_reservas.abm.dto;
+
+// Nombre de un artículo asociado a una reserva, para armar los listados sin cargar entidades
+public record ArticuloDeReserva(Long reservaId, String nombre) {
+}
@@ -0,0 +1,9 @@
+package com.gestion_reservas.abm.dto;
+
+import com.gestion_reservas.abm.model.HistorialReserva;
+
+import java.util.List;
+
+// Entradas de historial nuevas desde un cursor; "cursor" es el que hay que mandar en el próximo pedido
+public record CambiosHistorial(List<HistorialReserva> historial, String cursor, boolean hayMas) {
+}
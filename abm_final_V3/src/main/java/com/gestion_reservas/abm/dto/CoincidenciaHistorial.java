@@ -0,0 +1,7 @@
+package com.gestion_reservas.abm.dto;
+
+import com.gestion_reservas.abm.model.HistorialReserva;
+
+// Resultado de la búsqueda de texto en el historial, con su puntaje de relevancia
+public record CoincidenciaHistorial(HistorialReserva historial, int relevancia) {
+}
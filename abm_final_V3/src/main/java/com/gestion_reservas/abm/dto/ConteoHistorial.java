@@ -0,0 +1,5 @@
+package com.gestion_reservas.abm.dto;
+
+// Cantidad de entradas de historial de un usuario, sala o artículo; el nombre es el actual (null si ya no existe)
+public record ConteoHistorial(Long id, String nombre, long cantidad) {
+}
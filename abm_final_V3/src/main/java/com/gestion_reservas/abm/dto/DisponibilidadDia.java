@@ -0,0 +1,34 @@
+package com.gestion_reservas.abm.dto;
+
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ocupación de un día completo en un solo objeto, para que el formulario de reserva no tenga que
+ * consultar sala por sala y hora por hora. Solo aparecen las salas y las horas con algo ocupado:
+ * {"fecha":"2030-01-07","salas":{"3":[9,10]},"articulos":{"9":[4,7]}}
+ */
+public record DisponibilidadDia(LocalDate fecha, Map<Long, List<Integer>> salas, Map<Integer, List<Long>> articulos) {
+
+    // Las máscaras tienen un bit por hora del día (bit 0 = 00:00)
+    public static DisponibilidadDia de(LocalDate fecha, Map<Long, Integer> mascarasPorSala, Map<Long, Integer> mascarasPorArticulo) {
+        Map<Long, List<Integer>> salas = new TreeMap<>();
+        mascarasPorSala.forEach((salaId, mascara) -> {
+            if (mascara != 0) {
+                salas.put(salaId, IndiceDisponibilidad.aHoras(mascara));
+            }
+        });
+        Map<Integer, List<Long>> articulos = new TreeMap<>();
+        new TreeMap<>(mascarasPorArticulo).forEach((articuloId, mascara) -> {
+            for (Integer hora : IndiceDisponibilidad.aHoras(mascara)) {
+                articulos.computeIfAbsent(hora, h -> new ArrayList<>()).add(articuloId);
+            }
+        });
+        return new DisponibilidadDia(fecha, salas, articulos);
+    }
+}
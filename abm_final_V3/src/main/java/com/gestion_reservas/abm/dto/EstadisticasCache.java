@@ -0,0 +1,5 @@
+package com.gestion_reservas.abm.dto;
+
+// Aciertos: pedidos resueltos en memoria; fallos: pedidos que fueron a la base
+public record EstadisticasCache(long aciertos, long fallos, long invalidaciones, int elementos) {
+}
@@ -0,0 +1,5 @@
+package com.gestion_reservas.abm.dto;
+
+// Consultas: respuestas armadas desde el índice en memoria; sinCambios: revalidaciones contestadas con 304
+public record EstadisticasDisponibilidad(long consultas, long sinCambios) {
+}
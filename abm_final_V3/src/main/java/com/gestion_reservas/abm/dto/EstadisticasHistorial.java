@@ -0,0 +1,6 @@
+package com.gestion_reservas.abm.dto;
+
+import java.util.List;
+
+public record EstadisticasHistorial(List<ConteoHistorial> salas, List<ConteoHistorial> usuarios, List<ConteoHistorial> articulos) {
+}
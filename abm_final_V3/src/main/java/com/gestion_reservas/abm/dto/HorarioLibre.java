@@ -0,0 +1,7 @@
+package com.gestion_reservas.abm.dto;
+
+import java.time.LocalDateTime;
+
+// Un horario en el que la sala y los artículos pedidos están libres
+public record HorarioLibre(LocalDateTime inicio, LocalDateTime fin) {
+}
@@ -0,0 +1,31 @@
+package com.gestion_reservas.abm.dto;
+
+import java.util.List;
+
+/**
+ * Una página de un listado paginado por clave (keyset): en lugar de un número de página se pide
+ * "lo que sigue después del último elemento visto", así cada página cuesta lo mismo sin importar
+ * cuántas filas tenga la tabla. Las consultas traen un elemento de más para saber si hay siguiente.
+ */
+public record Pagina<T>(List<T> elementos, boolean haySiguiente) {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 200;
+
+    public static int acotar(int tamano) {
+        return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+    }
+
+    // Recibe hasta tamano + 1 filas
+    public static <T> Pagina<T> de(List<T> filas, int tamano) {
+        if (filas.size() <= tamano) {
+            return new Pagina<>(filas, false);
+        }
+        return new Pagina<>(List.copyOf(filas.subList(0, tamano)), true);
+    }
+
+    // Clave de la siguiente página
+    public T ultimo() {
+        return elementos.isEmpty() ? null : elementos.get(elementos.size() - 1);
+    }
+}
@@ -0,0 +1,19 @@
+package com.gestion_reservas.abm.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Fila de los listados de reservas (admin y mis-reservas): solo lo que muestran las vistas
+public record ReservaResumen(Long id, String usuarioNombre, String usuarioApellido, String salaNombre,
+                             LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin, List<String> articulos) {
+
+    // Usado por la consulta JPQL; los artículos se completan después con una segunda consulta
+    public ReservaResumen(Long id, String usuarioNombre, String usuarioApellido, String salaNombre,
+                          LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        this(id, usuarioNombre, usuarioApellido, salaNombre, fechaHoraInicio, fechaHoraFin, List.of());
+    }
+
+    public ReservaResumen conArticulos(List<String> articulos) {
+        return new ReservaResumen(id, usuarioNombre, usuarioApellido, salaNombre, fechaHoraInicio, fechaHoraFin, articulos);
+    }
+}
@@ -0,0 +1,23 @@
+package com.gestion_reservas.abm.dto;
+
+// Resultado de cada elemento de un alta en lote, en el mismo orden en que se recibió
+public record ResultadoReserva(int indice, Estado estado, Long reservaId, String mensaje) {
+
+    public enum Estado {
+        CREADA,
+        CONFLICTO,
+        INVALIDA
+    }
+
+    public static ResultadoReserva creada(int indice, Long reservaId) {
+        return new ResultadoReserva(indice, Estado.CREADA, reservaId, null);
+    }
+
+    public static ResultadoReserva conflicto(int indice, String mensaje) {
+        return new ResultadoReserva(indice, Estado.CONFLICTO, null, mensaje);
+    }
+
+    public static ResultadoReserva invalida(int indice, String mensaje) {
+        return new ResultadoReserva(indice, Estado.INVALIDA, null, mensaje);
+    }
+}
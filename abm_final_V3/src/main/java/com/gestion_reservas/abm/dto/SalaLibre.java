@@ -0,0 +1,11 @@
+package com.gestion_reservas.abm.dto;
+
+import com.gestion_reservas.abm.model.Sala;
+
+// Resultado de la búsqueda de salas libres (sin las colecciones de la entidad)
+public record SalaLibre(Long id, String nombre, int capacidad) {
+
+    public static SalaLibre de(Sala sala) {
+        return new SalaLibre(sala.getId(), sala.getNombre(), sala.getCapacidad());
+    }
+}
@@ -0,0 +1,12 @@
+package com.gestion_reservas.abm.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Una reserva pedida en un alta en lote (JSON de entrada)
+public record SolicitudReserva(Long usuarioId, Long salaId, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin, List<Long> articuloIds) {
+
+    public SolicitudReserva {
+        articuloIds = articuloIds == null ? List.of() : List.copyOf(articuloIds);
+    }
+}
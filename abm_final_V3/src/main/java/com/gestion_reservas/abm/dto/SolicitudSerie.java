@@ -0,0 +1,15 @@
+package com.gestion_reservas.abm.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Alta de una serie semanal: "todos los <día de fechaInicio> a las <horaInicio>, durante <repeticiones> semanas"
+public record SolicitudSerie(Long salaId, LocalDate fechaInicio, LocalTime horaInicio, int duracionMinutos,
+                             int repeticiones, List<Long> articuloIds, List<LocalDate> excepciones) {
+
+    public SolicitudSerie {
+        articuloIds = articuloIds == null ? List.of() : List.copyOf(articuloIds);
+        excepciones = excepciones == null ? List.of() : List.copyOf(excepciones);
+    }
+}
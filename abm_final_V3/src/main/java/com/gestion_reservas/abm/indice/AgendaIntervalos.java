@@ -0,0 +1,154 @@
+package com.gestion_reservas.abm.indice;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mapa ordenado de intervalos de un recurso (por ejemplo, una sala), indexado por fecha de inicio.
+ * Para saber si un rango [inicio, fin) está ocupado solo hace falta mirar los intervalos que
+ * empiezan entre (inicio - duración máxima) y fin, así que la consulta es O(log n + k).
+ * Además guarda, por día, una máscara de 24 bits con las franjas horarias ocupadas.
+ */
+public class AgendaIntervalos {
+
+    private final NavigableMap<LocalDateTime, List<IntervaloReserva>> porInicio = new TreeMap<>();
+    private final Map<LocalDate, Integer> mascarasPorDia = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Nunca se reduce al quitar intervalos: sobreestimarla solo amplía un poco el rango a revisar.
+    private Duration duracionMaxima = Duration.ZERO;
+
+    public void agregar(IntervaloReserva intervalo) {
+        lock.writeLock().lock();
+        try {
+            porInicio.computeIfAbsent(intervalo.inicio(), k -> new ArrayList<>(1)).add(intervalo);
+            Duration duracion = Duration.between(intervalo.inicio(), intervalo.fin());
+            if (duracion.compareTo(duracionMaxima) > 0) {
+                duracionMaxima = duracion;
+            }
+            for (LocalDate dia : diasQueCubre(intervalo)) {
+                mascarasPorDia.merge(dia, bitsDelDia(intervalo, dia), (a, b) -> a | b);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean quitar(IntervaloReserva intervalo) {
+        lock.writeLock().lock();
+        try {
+            List<IntervaloReserva> lista = porInicio.get(intervalo.inicio());
+            if (lista == null) {
+                return false;
+            }
+            boolean quitado = lista.removeIf(i -> i.reservaId().equals(intervalo.reservaId()));
+            if (lista.isEmpty()) {
+                porInicio.remove(intervalo.inicio());
+            }
+            if (quitado) {
+                // Otra reserva puede compartir la franja: se recalcula la máscara de cada día afectado
+                for (LocalDate dia : diasQueCubre(intervalo)) {
+                    recalcularMascara(dia);
+                }
+            }
+            return quitado;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean haySolapamiento(LocalDateTime inicio, LocalDateTime fin) {
+        lock.readLock().lock();
+        try {
+            for (List<IntervaloReserva> lista : candidatos(inicio, fin).values()) {
+                for (IntervaloReserva intervalo : lista) {
+                    if (intervalo.seSolapaCon(inicio, fin)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<IntervaloReserva> solapados(LocalDateTime inicio, LocalDateTime fin) {
+        lock.readLock().lock();
+        try {
+            List<IntervaloReserva> resultado = new ArrayList<>();
+            for (List<IntervaloReserva> lista : candidatos(inicio, fin).values()) {
+                for (IntervaloReserva intervalo : lista) {
+                    if (intervalo.seSolapaCon(inicio, fin)) {
+                        resultado.add(intervalo);
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bit h encendido = la franja [h:00, h+1:00) del día tiene al menos una reserva
+    public int mascaraDelDia(LocalDate dia) {
+        lock.readLock().lock();
+        try {
+            return mascarasPorDia.getOrDefault(dia, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void recalcularMascara(LocalDate dia) {
+        int mascara = 0;
+        for (List<IntervaloReserva> lista : candidatos(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()).values()) {
+            for (IntervaloReserva intervalo : lista) {
+                mascara |= bitsDelDia(intervalo, dia);
+            }
+        }
+        if (mascara == 0) {
+            mascarasPorDia.remove(dia);
+        } else {
+            mascarasPorDia.put(dia, mascara);
+        }
+    }
+
+    private static List<LocalDate> diasQueCubre(IntervaloReserva intervalo) {
+        List<LocalDate> dias = new ArrayList<>();
+        LocalDate ultimo = intervalo.fin().minusNanos(1).toLocalDate();
+        for (LocalDate dia = intervalo.inicio().toLocalDate(); !dia.isAfter(ultimo); dia = dia.plusDays(1)) {
+            dias.add(dia);
+        }
+        return dias;
+    }
+
+    static int bitsDelDia(IntervaloReserva intervalo, LocalDate dia) {
+        LocalDateTime inicioDelDia = dia.atStartOfDay();
+        LocalDateTime desde = intervalo.inicio().isAfter(inicioDelDia) ? intervalo.inicio() : inicioDelDia;
+        LocalDateTime hasta = intervalo.fin().isBefore(inicioDelDia.plusDays(1)) ? intervalo.fin() : inicioDelDia.plusDays(1);
+        int bits = 0;
+        for (LocalDateTime hora = desde.truncatedTo(ChronoUnit.HOURS); hora.isBefore(hasta); hora = hora.plusHours(1)) {
+            bits |= 1 << hora.getHour();
+        }
+        return bits;
+    }
+
+    private Map<LocalDateTime, List<IntervaloReserva>> candidatos(LocalDateTime inicio, LocalDateTime fin) {
+        LocalDateTime desde = inicio.minus(duracionMaxima);
+        if (desde.isAfter(fin)) {
+            return Map.of(); // Rango vacío o invertido
+        }
+        return porInicio.subMap(desde, true, fin, false);
+    }
+}
@@ -0,0 +1,5 @@
+package com.gestion_reservas.abm.indice;
+
+// Lo único que hace falta de una sala para buscar salas libres por capacidad
+public record CapacidadSala(Long salaId, int capacidad) {
+}
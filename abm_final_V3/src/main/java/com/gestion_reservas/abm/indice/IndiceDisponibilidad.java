@@ -0,0 +1,462 @@
+package com.gestion_reservas.abm.indice;
+
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.SerieReserva;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * Índice en memoria de las reservas por sala y por artículo. Se construye al arrancar a partir de
+ * las tablas reservas y reserva_articulos y se mantiene al día cuando se crea o cancela una reserva,
+ * de modo que las comprobaciones de disponibilidad no necesitan ir a la base de datos. Es la única fuente de
+ * disponibilidad: se carga antes de que la aplicación atienda pedidos y no hay consultas SQL alternativas.
+ * Las series recurrentes se guardan como reglas y sus ocurrencias se calculan solo para la ventana que se consulta.
+ */
+@Component
+public class IndiceDisponibilidad {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private SerieReservaRepository serieReservaRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    private final Map<Long, AgendaIntervalos> agendasPorSala = new ConcurrentHashMap<>();
+    private final Map<Long, AgendaIntervalos> agendasPorArticulo = new ConcurrentHashMap<>();
+    private final Map<Long, IntervaloReserva> intervalosPorReserva = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> articulosPorReserva = new ConcurrentHashMap<>();
+    // Series por sala y por artículo (serieId -> regla): las consultas solo miran las de lo que se pide
+    private final Map<Long, Map<Long, ReglaSerie>> seriesPorSala = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, ReglaSerie>> seriesPorArticulo = new ConcurrentHashMap<>();
+    private final Map<Long, ReglaSerie> seriesPorId = new ConcurrentHashMap<>();
+    // Salas ordenadas por capacidad (y por id dentro de la misma capacidad) para la búsqueda de salas libres
+    private final ConcurrentSkipListMap<Integer, Set<Long>> salasPorCapacidad = new ConcurrentSkipListMap<>();
+    private final Map<Long, Integer> capacidadPorSala = new ConcurrentHashMap<>();
+    private final VersionesDisponibilidad versiones = new VersionesDisponibilidad();
+
+    @PostConstruct
+    public void cargar() {
+        List<IntervaloReserva> intervalos = reservaRepository.findAllIntervalos();
+        for (IntervaloReserva intervalo : intervalos) {
+            agregar(intervalo);
+        }
+        // Los artículos reutilizan el intervalo ya cargado de su reserva
+        Map<Long, Set<Long>> articulosDeReservas = reservaRepository.findAllOcupacionArticulos().stream()
+                .collect(Collectors.groupingBy(OcupacionArticulo::reservaId,
+                        Collectors.mapping(OcupacionArticulo::articuloId, Collectors.toUnmodifiableSet())));
+        articulosDeReservas.forEach((reservaId, articuloIds) -> {
+            IntervaloReserva intervalo = intervalosPorReserva.get(reservaId);
+            if (intervalo != null) {
+                agregarArticulos(intervalo, articuloIds);
+            }
+        });
+        for (SerieReserva serie : serieReservaRepository.findAllConDetalle()) {
+            agregarSerie(ReglaSerie.de(serie));
+        }
+        for (CapacidadSala sala : salaRepository.findAllCapacidades()) {
+            agregarCapacidad(sala.salaId(), sala.capacidad());
+        }
+    }
+
+    public boolean haySolapamientoSala(Long salaId, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        AgendaIntervalos agenda = agendasPorSala.get(salaId);
+        if (agenda != null && agenda.haySolapamiento(fechaHoraInicio, fechaHoraFin)) {
+            return true;
+        }
+        return seriesDeSala(salaId).stream().anyMatch(regla -> regla.haySolapamiento(fechaHoraInicio, fechaHoraFin));
+    }
+
+    // Versiones de las consultas de disponibilidad, para las etiquetas ETag de la API
+    public VersionesDisponibilidad versiones() {
+        return versiones;
+    }
+
+    public List<Integer> horasOcupadas(Long salaId, LocalDate fecha) {
+        return aHoras(mascaraSala(salaId, fecha));
+    }
+
+    /**
+     * Salas con capacidad >= capacidadMinima libres en [fechaHoraInicio, fechaHoraFin), de la que
+     * mejor se ajusta a la que más sobra. Solo se recorren las salas que alcanzan la capacidad y cada
+     * una se resuelve con una búsqueda logarítmica en su agenda.
+     */
+    public List<Long> salasLibres(int capacidadMinima, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        List<Long> libres = new ArrayList<>();
+        for (Set<Long> salaIds : salasPorCapacidad.tailMap(capacidadMinima, true).values()) {
+            for (Long salaId : salaIds) {
+                if (!haySolapamientoSala(salaId, fechaHoraInicio, fechaHoraFin)) {
+                    libres.add(salaId);
+                }
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Si la sala o alguno de los artículos está ocupado en [fechaHoraInicio, fechaHoraFin), devuelve
+     * el fin más tardío de lo que se cruza: antes de ese momento no tiene sentido volver a probar.
+     * Devuelve null si todo está libre.
+     */
+    public LocalDateTime finDeConflictos(Long salaId, Collection<Long> articuloIds, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        List<IntervaloReserva> conflictos = new ArrayList<>();
+        AgendaIntervalos agenda = agendasPorSala.get(salaId);
+        if (agenda != null) {
+            conflictos.addAll(agenda.solapados(fechaHoraInicio, fechaHoraFin));
+        }
+        for (Long articuloId : articuloIds) {
+            AgendaIntervalos agendaArticulo = agendasPorArticulo.get(articuloId);
+            if (agendaArticulo != null) {
+                conflictos.addAll(agendaArticulo.solapados(fechaHoraInicio, fechaHoraFin));
+            }
+        }
+        Map<Long, ReglaSerie> series = new HashMap<>();
+        for (ReglaSerie regla : seriesDeSala(salaId)) {
+            series.put(regla.serieId(), regla);
+        }
+        for (Long articuloId : articuloIds) {
+            series.putAll(seriesPorArticulo.getOrDefault(articuloId, Map.of()));
+        }
+        for (ReglaSerie regla : series.values()) {
+            conflictos.addAll(regla.ocurrenciasEntre(fechaHoraInicio, fechaHoraFin));
+        }
+        return conflictos.stream().map(IntervaloReserva::fin).max(LocalDateTime::compareTo).orElse(null);
+    }
+
+    // Máscara de horas ocupadas de cada sala con actividad en el día
+    public Map<Long, Integer> mascarasSalasDelDia(LocalDate fecha) {
+        Set<Long> salaIds = new HashSet<>(agendasPorSala.keySet());
+        salaIds.addAll(seriesPorSala.keySet());
+        Map<Long, Integer> mascaras = new HashMap<>();
+        for (Long salaId : salaIds) {
+            mascaras.put(salaId, mascaraSala(salaId, fecha));
+        }
+        return mascaras;
+    }
+
+    // Máscara de horas ocupadas de cada artículo en el día, sumando reservas sueltas y series
+    public Map<Long, Integer> mascarasArticulosDelDia(LocalDate fecha) {
+        Map<Long, Integer> mascaras = new HashMap<>();
+        agendasPorArticulo.forEach((articuloId, agenda) -> mascaras.put(articuloId, agenda.mascaraDelDia(fecha)));
+        // Cada serie se evalúa una sola vez aunque use varios artículos
+        Map<Long, Integer> bitsPorSerie = new HashMap<>();
+        seriesPorArticulo.forEach((articuloId, reglas) -> {
+            for (ReglaSerie regla : reglas.values()) {
+                int bits = bitsPorSerie.computeIfAbsent(regla.serieId(), id -> mascaraDeSerie(regla, fecha));
+                mascaras.merge(articuloId, bits, (a, b) -> a | b);
+            }
+        });
+        return mascaras;
+    }
+
+    // ¿Alguno de estos artículos está ocupado en la ventana? Mira reservas sueltas y series.
+    public boolean hayArticuloOcupado(Collection<Long> articuloIds, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        for (Long articuloId : articuloIds) {
+            AgendaIntervalos agenda = agendasPorArticulo.get(articuloId);
+            if (agenda != null && agenda.haySolapamiento(fechaHoraInicio, fechaHoraFin)) {
+                return true;
+            }
+        }
+        return hayArticuloOcupadoEnSeries(articuloIds, fechaHoraInicio, fechaHoraFin);
+    }
+
+    public Set<Long> articulosOcupados(LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        Set<Long> ocupados = new HashSet<>();
+        agendasPorArticulo.forEach((articuloId, agenda) -> {
+            if (agenda.haySolapamiento(fechaHoraInicio, fechaHoraFin)) {
+                ocupados.add(articuloId);
+            }
+        });
+        ocupados.addAll(articulosOcupadosEnSeries(null, fechaHoraInicio, fechaHoraFin));
+        return ocupados;
+    }
+
+    public boolean hayArticuloOcupadoEnSeries(Collection<Long> articuloIds, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        return !articulosOcupadosEnSeries(articuloIds, fechaHoraInicio, fechaHoraFin).isEmpty();
+    }
+
+    // Con articuloIds == null se consideran todos los artículos
+    public Set<Long> articulosOcupadosEnSeries(Collection<Long> articuloIds, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        Collection<Long> candidatos = articuloIds == null ? seriesPorArticulo.keySet() : articuloIds;
+        Set<Long> ocupados = new HashSet<>();
+        for (Long articuloId : candidatos) {
+            Map<Long, ReglaSerie> reglas = seriesPorArticulo.get(articuloId);
+            if (reglas != null && reglas.values().stream().anyMatch(regla -> regla.haySolapamiento(fechaHoraInicio, fechaHoraFin))) {
+                ocupados.add(articuloId);
+            }
+        }
+        return ocupados;
+    }
+
+    public Collection<ReglaSerie> seriesDeSala(Long salaId) {
+        Map<Long, ReglaSerie> reglas = seriesPorSala.get(salaId);
+        return reglas == null ? List.of() : reglas.values();
+    }
+
+    // Alta o modificación (por ejemplo, una nueva fecha de excepción) de una serie
+    public void registrarSerie(ReglaSerie regla) {
+        ReglaSerie anterior = agregarSerie(regla);
+        alDeshacer(() -> {
+            quitarSerie(regla.serieId());
+            if (anterior != null) {
+                agregarSerie(anterior);
+            }
+        });
+    }
+
+    public void eliminarSerie(Long serieId) {
+        ReglaSerie anterior = quitarSerie(serieId);
+        if (anterior != null) {
+            alDeshacer(() -> agregarSerie(anterior));
+        }
+    }
+
+    public void registrar(Reserva reserva) {
+        IntervaloReserva intervalo = new IntervaloReserva(reserva.getId(), reserva.getSala().getId(),
+                reserva.getFechaHoraInicio(), reserva.getFechaHoraFin());
+        Set<Long> articuloIds = reserva.getArticulos() == null ? Set.of()
+                : reserva.getArticulos().stream().map(Articulo::getId).collect(Collectors.toUnmodifiableSet());
+        agregar(intervalo);
+        agregarArticulos(intervalo, articuloIds);
+        // Si la transacción que creó la reserva se deshace, el índice también
+        alDeshacer(() -> quitar(intervalo));
+    }
+
+    public void eliminar(Long reservaId) {
+        Set<Long> articuloIds = articulosPorReserva.getOrDefault(reservaId, Set.of());
+        IntervaloReserva intervalo = quitar(reservaId);
+        if (intervalo != null) {
+            alDeshacer(() -> {
+                agregar(intervalo);
+                agregarArticulos(intervalo, articuloIds);
+            });
+        }
+    }
+
+    // Alta o cambio de capacidad de una sala; se aplica cuando la transacción confirma
+    public void registrarSala(Long salaId, int capacidad) {
+        alConfirmar(() -> {
+            quitarCapacidad(salaId);
+            agregarCapacidad(salaId, capacidad);
+        });
+    }
+
+    // Las reservas de una sala eliminada se borran en cascada
+    public void eliminarSala(Long salaId) {
+        quitarCapacidad(salaId);
+        List<IntervaloReserva> deLaSala = intervalosPorReserva.values().stream()
+                .filter(intervalo -> intervalo.salaId().equals(salaId))
+                .collect(Collectors.toList());
+        deLaSala.forEach(this::quitar);
+        agendasPorSala.remove(salaId);
+        Map<Long, ReglaSerie> series = seriesPorSala.get(salaId);
+        if (series != null) {
+            List.copyOf(series.keySet()).forEach(this::quitarSerie);
+            seriesPorSala.remove(salaId);
+        }
+    }
+
+    // El artículo se desvincula de reservas y series recién cuando la transacción confirma
+    public void eliminarArticulo(Long articuloId) {
+        alConfirmar(() -> {
+            agendasPorArticulo.remove(articuloId);
+            articulosPorReserva.replaceAll((reservaId, ids) -> ids.contains(articuloId) ? sin(ids, articuloId) : ids);
+            Map<Long, ReglaSerie> series = seriesPorArticulo.get(articuloId);
+            if (series != null) {
+                List.copyOf(series.values()).forEach(regla -> agregarSerie(regla.sinArticulo(articuloId)));
+                seriesPorArticulo.remove(articuloId);
+            }
+            versiones.tocarTodosLosArticulos();
+        });
+    }
+
+    public static List<Integer> aHoras(int mascara) {
+        List<Integer> horas = new ArrayList<>(Integer.bitCount(mascara));
+        for (int resto = mascara; resto != 0; resto &= resto - 1) {
+            horas.add(Integer.numberOfTrailingZeros(resto));
+        }
+        return horas;
+    }
+
+    private int mascaraSala(Long salaId, LocalDate fecha) {
+        AgendaIntervalos agenda = agendasPorSala.get(salaId);
+        int mascara = agenda == null ? 0 : agenda.mascaraDelDia(fecha);
+        for (ReglaSerie regla : seriesDeSala(salaId)) {
+            mascara |= mascaraDeSerie(regla, fecha);
+        }
+        return mascara;
+    }
+
+    private static int mascaraDeSerie(ReglaSerie regla, LocalDate fecha) {
+        int mascara = 0;
+        for (IntervaloReserva ocurrencia : regla.ocurrenciasEntre(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay())) {
+            mascara |= AgendaIntervalos.bitsDelDia(ocurrencia, fecha);
+        }
+        return mascara;
+    }
+
+    private void agregarCapacidad(Long salaId, int capacidad) {
+        capacidadPorSala.put(salaId, capacidad);
+        salasPorCapacidad.computeIfAbsent(capacidad, c -> new ConcurrentSkipListSet<>()).add(salaId);
+    }
+
+    private void quitarCapacidad(Long salaId) {
+        Integer capacidad = capacidadPorSala.remove(salaId);
+        if (capacidad != null) {
+            Set<Long> salaIds = salasPorCapacidad.get(capacidad);
+            if (salaIds != null) {
+                salaIds.remove(salaId); // El conjunto vacío se deja: es inofensivo y evita carreras con un alta
+            }
+        }
+    }
+
+    private ReglaSerie agregarSerie(ReglaSerie regla) {
+        ReglaSerie anterior = seriesPorId.put(regla.serieId(), regla);
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+        seriesPorSala.computeIfAbsent(regla.salaId(), id -> new ConcurrentHashMap<>()).put(regla.serieId(), regla);
+        for (Long articuloId : regla.articuloIds()) {
+            seriesPorArticulo.computeIfAbsent(articuloId, id -> new ConcurrentHashMap<>()).put(regla.serieId(), regla);
+        }
+        tocar(regla);
+        if (anterior != null) {
+            tocar(anterior);
+        }
+        return anterior;
+    }
+
+    private ReglaSerie quitarSerie(Long serieId) {
+        ReglaSerie quitada = seriesPorId.remove(serieId);
+        if (quitada != null) {
+            desindexar(quitada);
+            tocar(quitada);
+        }
+        return quitada;
+    }
+
+    // Saca la regla de los mapas por sala y por artículo; los mapas vacíos se dejan, como en salasPorCapacidad
+    private void desindexar(ReglaSerie regla) {
+        Map<Long, ReglaSerie> deLaSala = seriesPorSala.get(regla.salaId());
+        if (deLaSala != null) {
+            deLaSala.remove(regla.serieId(), regla);
+        }
+        for (Long articuloId : regla.articuloIds()) {
+            Map<Long, ReglaSerie> delArticulo = seriesPorArticulo.get(articuloId);
+            if (delArticulo != null) {
+                delArticulo.remove(regla.serieId(), regla);
+            }
+        }
+    }
+
+    // Las versiones se incrementan después de cambiar el índice: una respuesta nunca sale con una versión
+    // más nueva que su contenido
+    private void tocar(ReglaSerie regla) {
+        for (IntervaloReserva ocurrencia : regla.ocurrenciasEntre(regla.primerInicio(), regla.ultimoFin())) {
+            versiones.tocarSala(regla.salaId(), ocurrencia.inicio(), ocurrencia.fin());
+            if (!regla.articuloIds().isEmpty()) {
+                versiones.tocarArticulos(ocurrencia.inicio(), ocurrencia.fin());
+            }
+        }
+    }
+
+    private void agregar(IntervaloReserva intervalo) {
+        intervalosPorReserva.put(intervalo.reservaId(), intervalo);
+        agendasPorSala.computeIfAbsent(intervalo.salaId(), id -> new AgendaIntervalos()).agregar(intervalo);
+        versiones.tocarSala(intervalo.salaId(), intervalo.inicio(), intervalo.fin());
+    }
+
+    private void agregarArticulos(IntervaloReserva intervalo, Set<Long> articuloIds) {
+        if (articuloIds.isEmpty()) {
+            return;
+        }
+        articulosPorReserva.put(intervalo.reservaId(), articuloIds);
+        for (Long articuloId : articuloIds) {
+            agendasPorArticulo.computeIfAbsent(articuloId, id -> new AgendaIntervalos()).agregar(intervalo);
+        }
+        versiones.tocarArticulos(intervalo.inicio(), intervalo.fin());
+    }
+
+    private IntervaloReserva quitar(Long reservaId) {
+        IntervaloReserva intervalo = intervalosPorReserva.get(reservaId);
+        if (intervalo != null) {
+            quitar(intervalo);
+        }
+        return intervalo;
+    }
+
+    private void quitar(IntervaloReserva intervalo) {
+        intervalosPorReserva.remove(intervalo.reservaId(), intervalo);
+        AgendaIntervalos agenda = agendasPorSala.get(intervalo.salaId());
+        if (agenda != null) {
+            agenda.quitar(intervalo);
+        }
+        Set<Long> articuloIds = articulosPorReserva.remove(intervalo.reservaId());
+        if (articuloIds != null) {
+            for (Long articuloId : articuloIds) {
+                AgendaIntervalos agendaArticulo = agendasPorArticulo.get(articuloId);
+                if (agendaArticulo != null) {
+                    agendaArticulo.quitar(intervalo);
+                }
+            }
+            versiones.tocarArticulos(intervalo.inicio(), intervalo.fin());
+        }
+        versiones.tocarSala(intervalo.salaId(), intervalo.inicio(), intervalo.fin());
+    }
+
+    private static Set<Long> sin(Set<Long> ids, Long id) {
+        Set<Long> copia = new HashSet<>(ids);
+        copia.remove(id);
+        return Set.copyOf(copia);
+    }
+
+    private void alDeshacer(Runnable compensacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensacion.run();
+                }
+            }
+        });
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.gestion_reservas.abm.indice;
+
+import com.gestion_reservas.abm.dto.CoincidenciaHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import com.gestion_reservas.abm.repository.FilasHistorial;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de texto del historial, guardado en la tabla historial_tokens: cada palabra de usuarioInfo,
+ * salaInfo y articulosInfo (en minúsculas y sin tildes) queda una vez por entrada y por campo. Las
+ * búsquedas son por prefijo de palabra, así recorren un rango de la clave primaria (token, campo,
+ * historial_id) en lugar de aplicar LIKE '%...%' sobre el texto de todas las filas. Las palabras de menos
+ * de LARGO_MINIMO_TOKEN letras y las que aparecen en casi todas las entradas (PALABRAS_COMUNES) no se
+ * indexan ni se buscan: su prefijo recorrería buena parte de la tabla sin filtrar nada.
+ * Lo mantiene el EscritorHistorial, en la misma transacción en la que inserta cada lote.
+ */
+@Component
+public class IndiceTextoHistorial {
+
+    public static final int CAMPO_USUARIO = 1;
+    public static final int CAMPO_SALA = 2;
+    public static final int CAMPO_ARTICULOS = 3;
+
+    public static final int LARGO_MAXIMO_TOKEN = 64;
+    public static final int LARGO_MINIMO_TOKEN = 3;
+    private static final int MAX_TERMINOS = 8;
+    // Tope de filas de historial_tokens que se leen por término al rankear; más allá el resultado es parcial
+    private static final int MAX_COINCIDENCIAS_POR_TERMINO = 10_000;
+
+    // Están en el texto de la sala de todas las entradas, en los correos o son conectores del castellano
+    private static final Set<String> PALABRAS_COMUNES = Set.of("capacidad", "com", "del", "las", "los", "por", "con", "para", "una");
+
+    // Palabras completas (conservan los emails enteros) y, dentro de cada una, sus partes alfanuméricas
+    private static final Pattern SEPARADOR_PALABRAS = Pattern.compile("[^a-z0-9@._-]+");
+    private static final Pattern SEPARADOR_PARTES = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private static final String SIN_ARTICULOS = "Ninguno";
+
+    private static final String INSERT = "INSERT INTO historial_tokens (token, campo, historial_id) VALUES (?, ?, ?)";
+    // Relevancia de cada término: pesa más en el usuario que en la sala o los artículos, y el doble si la palabra es exacta
+    private static final String PESO_TERMINO = "MAX(CASE t.campo WHEN 1 THEN 3 WHEN 2 THEN 2 ELSE 1 END "
+            + "* CASE WHEN t.token = ? THEN 2 ELSE 1 END)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static Set<String> tokenizar(String texto) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String palabra : SEPARADOR_PALABRAS.split(normalizar(texto))) {
+            agregarToken(tokens, palabra);
+            for (String parte : SEPARADOR_PARTES.split(palabra)) {
+                agregarToken(tokens, parte);
+            }
+        }
+        return tokens;
+    }
+
+    // Filas (token, campo, historial_id) de una entrada; también las usa la migración que indexa el historial existente
+    public static List<Object[]> filasDeTokens(long historialId, String usuarioInfo, String salaInfo, String articulosInfo) {
+        List<Object[]> filas = new ArrayList<>();
+        agregarFilas(filas, historialId, CAMPO_USUARIO, usuarioInfo);
+        agregarFilas(filas, historialId, CAMPO_SALA, salaInfo);
+        if (!SIN_ARTICULOS.equals(articulosInfo)) {
+            agregarFilas(filas, historialId, CAMPO_ARTICULOS, articulosInfo);
+        }
+        return filas;
+    }
+
+    public void indexar(List<HistorialReserva> lote) {
+        List<Object[]> filas = new ArrayList<>();
+        for (HistorialReserva historial : lote) {
+            filas.addAll(filasDeTokens(historial.getId(), historial.getUsuarioInfo(), historial.getSalaInfo(), historial.getArticulosInfo()));
+        }
+        jdbcTemplate.batchUpdate(INSERT, filas);
+    }
+
+    /**
+     * Entradas que tienen todos los términos de la consulta (en cualquier campo), de la más relevante
+     * a la menos relevante y, a igual relevancia, de la más nueva a la más vieja.
+     */
+    public List<CoincidenciaHistorial> buscar(String consulta, int limite) {
+        List<String> terminos = terminos(consulta);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder coincidencias = new StringBuilder();
+        List<Object> parametros = new ArrayList<>();
+        for (String termino : terminos) {
+            if (!parametros.isEmpty()) {
+                coincidencias.append(" UNION ALL ");
+            }
+            coincidencias.append("SELECT t.historial_id, ").append(PESO_TERMINO).append(" AS peso FROM (")
+                    .append("SELECT token, campo, historial_id FROM historial_tokens WHERE token LIKE ? ESCAPE '\\' LIMIT ?) t ")
+                    .append("GROUP BY t.historial_id");
+            parametros.add(termino);
+            parametros.add(prefijo(termino));
+            parametros.add(MAX_COINCIDENCIAS_POR_TERMINO);
+        }
+        parametros.add(terminos.size());
+        parametros.add(limite);
+        String sql = "SELECT " + FilasHistorial.COLUMNAS + ", r.relevancia FROM historial_reservas h JOIN ("
+                + "SELECT c.historial_id, SUM(c.peso) AS relevancia FROM (" + coincidencias + ") c "
+                + "GROUP BY c.historial_id HAVING COUNT(*) = ?) r ON r.historial_id = h.id "
+                + "ORDER BY r.relevancia DESC, h.id DESC LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, fila) -> new CoincidenciaHistorial(FilasHistorial.MAPEO.mapRow(rs, fila), rs.getInt("relevancia")),
+                parametros.toArray());
+    }
+
+    /**
+     * Filtro del listado del administrador: entradas cuyo usuario tiene todas las palabras de la consulta,
+     * con los mismos filtros de fecha y la misma paginación por clave que HistorialReservaRepository.findFilteredHistorial.
+     * La consulta debe tener al menos un término (ver terminos).
+     */
+    public List<HistorialReserva> filtrarPorUsuario(String consulta, LocalDateTime fechaDesde, LocalDateTime fechaHasta,
+                                                    LocalDateTime antesDeFecha, Long antesDeId, int limite) {
+        List<String> terminos = terminos(consulta);
+        StringBuilder sql = new StringBuilder("SELECT ").append(FilasHistorial.COLUMNAS).append(" FROM historial_reservas h WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        for (String termino : terminos) {
+            sql.append(" AND h.id IN (SELECT t.historial_id FROM historial_tokens t WHERE t.token LIKE ? ESCAPE '\\' AND t.campo = ")
+                    .append(CAMPO_USUARIO).append(")");
+            parametros.add(prefijo(termino));
+        }
+        if (fechaDesde != null) {
+            sql.append(" AND h.fecha_hora_inicio >= ?");
+            parametros.add(Timestamp.valueOf(fechaDesde));
+        }
+        if (fechaHasta != null) {
+            sql.append(" AND h.fecha_hora_inicio <= ?");
+            parametros.add(Timestamp.valueOf(fechaHasta));
+        }
+        if (antesDeFecha != null && antesDeId != null) {
+            sql.append(" AND h.fecha_creacion_historial <= ? AND (h.fecha_creacion_historial < ? OR h.id < ?)");
+            parametros.add(Timestamp.valueOf(antesDeFecha));
+            parametros.add(Timestamp.valueOf(antesDeFecha));
+            parametros.add(antesDeId);
+        }
+        sql.append(" ORDER BY h.fecha_creacion_historial DESC, h.id DESC LIMIT ?");
+        parametros.add(limite);
+        return jdbcTemplate.query(sql.toString(), FilasHistorial.MAPEO, parametros.toArray());
+    }
+
+    // Misma regla que filtrarPorUsuario, para entradas que no están en la tabla (segmentos archivados)
+    public static boolean coincidenTodos(List<String> terminos, String texto) {
+        Set<String> tokens = tokenizar(texto);
+        return terminos.stream().allMatch(termino -> tokens.stream().anyMatch(token -> token.startsWith(termino)));
+    }
+
+    // Los términos de una consulta son sus palabras completas, que se buscan como prefijo de los tokens.
+    // Las cortas o comunes se descartan con la misma regla que al indexar.
+    public static List<String> terminos(String consulta) {
+        if (consulta == null) {
+            return List.of();
+        }
+        Set<String> terminos = new LinkedHashSet<>();
+        for (String palabra : SEPARADOR_PALABRAS.split(normalizar(consulta))) {
+            agregarToken(terminos, palabra);
+            if (terminos.size() == MAX_TERMINOS) {
+                break;
+            }
+        }
+        return new ArrayList<>(terminos);
+    }
+
+    private static void agregarFilas(List<Object[]> filas, long historialId, int campo, String texto) {
+        for (String token : tokenizar(texto)) {
+            filas.add(new Object[]{token, campo, historialId});
+        }
+    }
+
+    private static void agregarToken(Set<String> tokens, String token) {
+        if (token.length() >= LARGO_MINIMO_TOKEN && !PALABRAS_COMUNES.contains(token)) {
+            tokens.add(token.length() > LARGO_MAXIMO_TOKEN ? token.substring(0, LARGO_MAXIMO_TOKEN) : token);
+        }
+    }
+
+    private static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    private static String prefijo(String termino) {
+        return termino.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
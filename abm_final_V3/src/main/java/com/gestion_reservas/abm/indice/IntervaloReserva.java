@@ -0,0 +1,11 @@
+package com.gestion_reservas.abm.indice;
+
+import java.time.LocalDateTime;
+
+// Vista mínima de una reserva: solo lo necesario para responder consultas de disponibilidad.
+public record IntervaloReserva(Long reservaId, Long salaId, LocalDateTime inicio, LocalDateTime fin) {
+
+    public boolean seSolapaCon(LocalDateTime otroInicio, LocalDateTime otroFin) {
+        return inicio.isBefore(otroFin) && fin.isAfter(otroInicio);
+    }
+}
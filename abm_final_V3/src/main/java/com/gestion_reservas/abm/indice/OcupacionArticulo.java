@@ -0,0 +1,11 @@
+package com.gestion_reservas.abm.indice;
+
+import java.time.LocalDateTime;
+
+// Un artículo ocupado por una reserva durante [inicio, fin)
+public record OcupacionArticulo(Long articuloId, Long reservaId, LocalDateTime inicio, LocalDateTime fin) {
+
+    public IntervaloReserva comoIntervalo(Long salaId) {
+        return new IntervaloReserva(reservaId, salaId, inicio, fin);
+    }
+}
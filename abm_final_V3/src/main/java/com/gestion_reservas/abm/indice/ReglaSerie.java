@@ -0,0 +1,63 @@
+package com.gestion_reservas.abm.indice;
+
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.SerieReserva;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Copia inmutable de una serie semanal. Las ocurrencias se calculan solo para la ventana consultada:
+ * la k-ésima empieza en primerInicio + k semanas, así que basta con aritmética para saber qué k caen
+ * dentro de [inicio, fin), sin recorrer la serie completa.
+ */
+public record ReglaSerie(Long serieId, Long salaId, Set<Long> articuloIds, LocalDateTime primerInicio,
+                         Duration duracion, int repeticiones, Set<LocalDate> excepciones) {
+
+    private static final long SEGUNDOS_POR_SEMANA = Duration.ofDays(7).getSeconds();
+
+    public static ReglaSerie de(SerieReserva serie) {
+        return new ReglaSerie(
+                serie.getId(),
+                serie.getSala().getId(),
+                serie.getArticulos().stream().map(Articulo::getId).collect(Collectors.toUnmodifiableSet()),
+                serie.getFechaInicio().atTime(serie.getHoraInicio()),
+                Duration.ofMinutes(serie.getDuracionMinutos()),
+                serie.getRepeticiones(),
+                Set.copyOf(serie.getExcepciones()));
+    }
+
+    public ReglaSerie sinArticulo(Long articuloId) {
+        Set<Long> restantes = articuloIds.stream().filter(id -> !id.equals(articuloId)).collect(Collectors.toUnmodifiableSet());
+        return new ReglaSerie(serieId, salaId, restantes, primerInicio, duracion, repeticiones, excepciones);
+    }
+
+    public LocalDateTime ultimoFin() {
+        return primerInicio.plusWeeks(repeticiones - 1L).plus(duracion);
+    }
+
+    public List<IntervaloReserva> ocurrenciasEntre(LocalDateTime inicio, LocalDateTime fin) {
+        List<IntervaloReserva> ocurrencias = new ArrayList<>();
+        // Ocurrencia k se solapa si: primerInicio + k*semana < fin  y  primerInicio + k*semana + duracion > inicio
+        long desde = Duration.between(primerInicio, inicio).minus(duracion).getSeconds();
+        long hasta = Duration.between(primerInicio, fin).getSeconds();
+        long kMin = Math.max(0, Math.floorDiv(desde, SEGUNDOS_POR_SEMANA) + 1);
+        long kMax = Math.min(repeticiones - 1L, Math.floorDiv(hasta - 1, SEGUNDOS_POR_SEMANA));
+        for (long k = kMin; k <= kMax; k++) {
+            LocalDateTime inicioOcurrencia = primerInicio.plusWeeks(k);
+            if (!excepciones.contains(inicioOcurrencia.toLocalDate())) {
+                ocurrencias.add(new IntervaloReserva(null, salaId, inicioOcurrencia, inicioOcurrencia.plus(duracion)));
+            }
+        }
+        return ocurrencias;
+    }
+
+    public boolean haySolapamiento(LocalDateTime inicio, LocalDateTime fin) {
+        return !ocurrenciasEntre(inicio, fin).isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package com.gestion_reservas.abm.indice;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de versión de lo que devuelven las consultas de disponibilidad: por sala y día (horas
+ * ocupadas), por franja de una hora (artículos ocupados) y por día (disponibilidad del día). El índice
+ * los incrementa con cada cambio, así que una respuesta con la misma versión que la anterior es igual.
+ * Los contadores son un arreglo fijo indexado por hash: dos claves que caen en la misma posición solo
+ * hacen que alguna versión cambie sin necesidad, nunca que un cambio pase desapercibido.
+ */
+public class VersionesDisponibilidad {
+
+    private static final int POSICIONES = 1 << 12;
+    // Un intervalo que cubre más franjas que esto cambia todas las versiones de artículos a la vez
+    private static final int MAX_HORAS_POR_INTERVALO = 24 * 7;
+
+    // Distingue este arranque de los anteriores: los contadores empiezan de cero cada vez
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLongArray salasPorDia = new AtomicLongArray(POSICIONES);
+    private final AtomicLongArray articulosPorHora = new AtomicLongArray(POSICIONES);
+    private final AtomicLongArray dias = new AtomicLongArray(POSICIONES);
+    private final AtomicLong todosLosArticulos = new AtomicLong();
+
+    public String salaDia(Long salaId, LocalDate fecha) {
+        return etiqueta(salasPorDia.get(posicion(salaId.hashCode(), fecha.hashCode())));
+    }
+
+    // "hora" es el comienzo de la franja [hora, hora + 1h)
+    public String articulosHora(LocalDateTime hora) {
+        return etiqueta(todosLosArticulos.get() + ":" + articulosPorHora.get(posicion(hora.hashCode(), 0)));
+    }
+
+    public String dia(LocalDate fecha) {
+        return etiqueta(todosLosArticulos.get() + ":" + dias.get(posicion(fecha.hashCode(), 0)));
+    }
+
+    // Alta o baja de un intervalo en la agenda de la sala
+    void tocarSala(Long salaId, LocalDateTime inicio, LocalDateTime fin) {
+        for (LocalDate dia = inicio.toLocalDate(); dia.atStartOfDay().isBefore(fin); dia = dia.plusDays(1)) {
+            salasPorDia.incrementAndGet(posicion(salaId.hashCode(), dia.hashCode()));
+            dias.incrementAndGet(posicion(dia.hashCode(), 0));
+        }
+    }
+
+    // Alta o baja de un intervalo en la agenda de uno o más artículos
+    void tocarArticulos(LocalDateTime inicio, LocalDateTime fin) {
+        for (LocalDate dia = inicio.toLocalDate(); dia.atStartOfDay().isBefore(fin); dia = dia.plusDays(1)) {
+            dias.incrementAndGet(posicion(dia.hashCode(), 0));
+        }
+        LocalDateTime primera = inicio.truncatedTo(ChronoUnit.HOURS);
+        if (ChronoUnit.HOURS.between(primera, fin) > MAX_HORAS_POR_INTERVALO) {
+            todosLosArticulos.incrementAndGet();
+            return;
+        }
+        for (LocalDateTime hora = primera; hora.isBefore(fin); hora = hora.plusHours(1)) {
+            articulosPorHora.incrementAndGet(posicion(hora.hashCode(), 0));
+        }
+    }
+
+    // Cambios que afectan a los artículos de cualquier franja (por ejemplo, la baja de un artículo)
+    void tocarTodosLosArticulos() {
+        todosLosArticulos.incrementAndGet();
+    }
+
+    // Débil (W/): la misma versión da el mismo contenido, aunque el JSON puede salir en otro orden
+    private String etiqueta(Object version) {
+        return "W/\"" + arranque + "-" + version + "\"";
+    }
+
+    private static int posicion(int hash, int otroHash) {
+        int h = hash * 31 + otroHash;
+        h ^= h >>> 16;
+        return h & (POSICIONES - 1);
+    }
+}
@@ -1,25 +1,43 @@
 package com.gestion_reservas.abm.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Formula;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "historial_reservas")
 public class HistorialReserva {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "historial_reservas_id")
+    @SequenceGenerator(name = "historial_reservas_id", sequenceName = "historial_reservas_seq", allocationSize = 50)
     private Long id;
 
     private Long reservaId; // ID de la reserva original
 
-    @Column(columnDefinition = "TEXT")
+    // Ids al momento de reservar, para filtrar y agrupar sin analizar el texto. Sin clave foránea:
+    // el historial se conserva aunque se borre el usuario, la sala o el artículo.
+    private Long usuarioId;
+    private Long salaId;
+
+    @ElementCollection
+    @CollectionTable(name = "historial_articulos", joinColumns = @JoinColumn(name = "historial_id"))
+    @Column(name = "articulo_id")
+    @JsonIgnore // Se consulta con GROUP BY; no forma parte de la exportación
+    private Set<Long> articuloIds = new HashSet<>();
+
+    // Textos guardados una sola vez en historial_textos (ver DiccionarioHistorial); se leen con la entrada.
+    // Las entradas las escribe EscritorHistorial por JDBC, nunca Hibernate.
+    @Formula("(SELECT t.texto FROM historial_textos t WHERE t.id = usuario_texto_id)")
     private String usuarioInfo;
 
-    @Column(columnDefinition = "TEXT")
+    @Formula("(SELECT t.texto FROM historial_textos t WHERE t.id = sala_texto_id)")
     private String salaInfo;
 
-    @Column(columnDefinition = "TEXT")
+    @Formula("(SELECT t.texto FROM historial_textos t WHERE t.id = articulos_texto_id)")
     private String articulosInfo;
 
     private LocalDateTime fechaHoraInicio;
@@ -45,6 +63,30 @@ public class HistorialReserva {
         this.reservaId = reservaId;
     }
 
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public Long getSalaId() {
+        return salaId;
+    }
+
+    public void setSalaId(Long salaId) {
+        this.salaId = salaId;
+    }
+
+    public Set<Long> getArticuloIds() {
+        return articuloIds;
+    }
+
+    public void setArticuloIds(Set<Long> articuloIds) {
+        this.articuloIds = articuloIds;
+    }
+
     public String getUsuarioInfo() {
         return usuarioInfo;
     }
@@ -9,8 +9,10 @@ import java.util.Set;
 @Table(name = "reservas")
 public class Reserva {
 
+    // Secuencia con bloques de 50 ids: Hibernate no consulta la base por cada fila y puede agrupar los INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_id")
+    @SequenceGenerator(name = "reservas_id", sequenceName = "reservas_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
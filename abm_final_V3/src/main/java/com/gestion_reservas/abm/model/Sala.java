@@ -8,7 +8,8 @@ import java.util.List;
 public class Sala {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sala_id")
+    @SequenceGenerator(name = "sala_id", sequenceName = "sala_seq", allocationSize = 50)
     private Long id;
     private String nombre;
     private int capacidad;
@@ -16,6 +17,9 @@ public class Sala {
     @OneToMany(mappedBy = "sala", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Reserva> reservas = new ArrayList<>();
 
+    @OneToMany(mappedBy = "sala", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<SerieReserva> series = new ArrayList<>();
+
     // Getters and Setters
 
     public Long getId() {
@@ -49,4 +53,12 @@ public class Sala {
     public void setReservas(List<Reserva> reservas) {
         this.reservas = reservas;
     }
+
+    public List<SerieReserva> getSeries() {
+        return series;
+    }
+
+    public void setSeries(List<SerieReserva> series) {
+        this.series = series;
+    }
 }
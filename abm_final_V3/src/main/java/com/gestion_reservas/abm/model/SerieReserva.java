@@ -0,0 +1,136 @@
+package com.gestion_reservas.abm.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// Reserva semanal recurrente: las ocurrencias no se guardan como filas, se calculan a partir de la regla.
+@Entity
+@Table(name = "series_reserva")
+public class SerieReserva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "series_reserva_id")
+    @SequenceGenerator(name = "series_reserva_id", sequenceName = "series_reserva_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @ManyToOne
+    @JoinColumn(name = "sala_id", nullable = false)
+    private Sala sala;
+
+    @ManyToMany
+    @JoinTable(
+        name = "serie_articulos",
+        joinColumns = @JoinColumn(name = "serie_id"),
+        inverseJoinColumns = @JoinColumn(name = "articulo_id")
+    )
+    private Set<Articulo> articulos = new HashSet<>();
+
+    @Column(nullable = false)
+    private LocalDate fechaInicio; // Fecha de la primera ocurrencia
+
+    @Column(nullable = false)
+    private LocalDate fechaFin; // Fecha de la última ocurrencia
+
+    @Column(nullable = false)
+    private LocalTime horaInicio;
+
+    @Column(nullable = false)
+    private int duracionMinutos;
+
+    @Column(nullable = false)
+    private int repeticiones; // Cantidad de semanas
+
+    @ElementCollection
+    @CollectionTable(name = "serie_excepciones", joinColumns = @JoinColumn(name = "serie_id"))
+    @Column(name = "fecha")
+    private Set<LocalDate> excepciones = new HashSet<>(); // Fechas en las que no hay ocurrencia
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    public void setUsuario(Usuario usuario) {
+        this.usuario = usuario;
+    }
+
+    public Sala getSala() {
+        return sala;
+    }
+
+    public void setSala(Sala sala) {
+        this.sala = sala;
+    }
+
+    public Set<Articulo> getArticulos() {
+        return articulos;
+    }
+
+    public void setArticulos(Set<Articulo> articulos) {
+        this.articulos = articulos;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public LocalTime getHoraInicio() {
+        return horaInicio;
+    }
+
+    public void setHoraInicio(LocalTime horaInicio) {
+        this.horaInicio = horaInicio;
+    }
+
+    public int getDuracionMinutos() {
+        return duracionMinutos;
+    }
+
+    public void setDuracionMinutos(int duracionMinutos) {
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    public int getRepeticiones() {
+        return repeticiones;
+    }
+
+    public void setRepeticiones(int repeticiones) {
+        this.repeticiones = repeticiones;
+    }
+
+    public Set<LocalDate> getExcepciones() {
+        return excepciones;
+    }
+
+    public void setExcepciones(Set<LocalDate> excepciones) {
+        this.excepciones = excepciones;
+    }
+}
@@ -1,15 +1,20 @@
 package com.gestion_reservas.abm.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable // Caché de segundo nivel (ver CacheSegundoNivelConfig)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_id")
+    @SequenceGenerator(name = "usuario_id", sequenceName = "usuario_seq", allocationSize = 50)
     private Long id;
     private String username; // Correo electrónico
     private String password;
@@ -23,6 +28,9 @@ public class Usuario {
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Reserva> reservas = new ArrayList<>();
 
+    @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<SerieReserva> series = new ArrayList<>();
+
     // Getters and Setters
 
     public Long getId() {
@@ -88,4 +96,12 @@ public class Usuario {
     public void setReservas(List<Reserva> reservas) {
         this.reservas = reservas;
     }
+
+    public List<SerieReserva> getSeries() {
+        return series;
+    }
+
+    public void setSeries(List<SerieReserva> series) {
+        this.series = series;
+    }
 }
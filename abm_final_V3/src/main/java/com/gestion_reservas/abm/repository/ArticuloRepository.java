@@ -1,7 +1,13 @@
 package com.gestion_reservas.abm.repository;
 
 import com.gestion_reservas.abm.model.Articulo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface ArticuloRepository extends JpaRepository<Articulo, Long> {
+
+    // Paginación por clave: los que siguen al último id visto
+    List<Articulo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
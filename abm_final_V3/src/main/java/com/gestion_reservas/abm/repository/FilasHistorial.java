@@ -0,0 +1,44 @@
+package com.gestion_reservas.abm.repository;
+
+import com.gestion_reservas.abm.model.HistorialReserva;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Columnas y mapeo de historial_reservas para las consultas JDBC (índice de texto y archivo por meses)
+public final class FilasHistorial {
+
+    // Los textos se resuelven contra el diccionario, con los mismos nombres que tenían las columnas
+    public static final String COLUMNAS = "h.id, h.reserva_id, h.usuario_id, h.sala_id, "
+            + texto("usuario_texto_id", "usuario_info") + ", "
+            + texto("sala_texto_id", "sala_info") + ", "
+            + texto("articulos_texto_id", "articulos_info") + ", "
+            + "h.fecha_hora_inicio, h.fecha_hora_fin, h.fecha_creacion_historial";
+
+    public static final RowMapper<HistorialReserva> MAPEO = (rs, fila) -> {
+        HistorialReserva historial = new HistorialReserva();
+        historial.setId(rs.getLong("id"));
+        historial.setReservaId(rs.getObject("reserva_id", Long.class));
+        historial.setUsuarioId(rs.getObject("usuario_id", Long.class));
+        historial.setSalaId(rs.getObject("sala_id", Long.class));
+        historial.setUsuarioInfo(rs.getString("usuario_info"));
+        historial.setSalaInfo(rs.getString("sala_info"));
+        historial.setArticulosInfo(rs.getString("articulos_info"));
+        historial.setFechaHoraInicio(aFecha(rs.getTimestamp("fecha_hora_inicio")));
+        historial.setFechaHoraFin(aFecha(rs.getTimestamp("fecha_hora_fin")));
+        historial.setFechaCreacionHistorial(aFecha(rs.getTimestamp("fecha_creacion_historial")));
+        return historial;
+    };
+
+    private FilasHistorial() {
+    }
+
+    private static String texto(String columnaId, String alias) {
+        return "(SELECT t.texto FROM historial_textos t WHERE t.id = h." + columnaId + ") AS " + alias;
+    }
+
+    private static LocalDateTime aFecha(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
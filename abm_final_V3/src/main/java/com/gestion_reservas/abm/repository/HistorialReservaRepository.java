@@ -1,23 +1,64 @@
 package com.gestion_reservas.abm.repository;
 
+import com.gestion_reservas.abm.dto.ConteoHistorial;
 import com.gestion_reservas.abm.model.HistorialReserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface HistorialReservaRepository extends JpaRepository<HistorialReserva, Long> {
 
+    // El filtro por usuario lo resuelve IndiceTextoHistorial; esta consulta cubre el listado sin texto
     @Query("SELECT hr FROM HistorialReserva hr " +
-           "WHERE (:usuarioInfoParam IS NULL OR LOWER(hr.usuarioInfo) LIKE LOWER(CONCAT('%', :usuarioInfoParam, '%'))) " +
-           "AND (:fechaDesdeParam IS NULL OR hr.fechaHoraInicio >= :fechaDesdeParam) " +
+           "WHERE (:fechaDesdeParam IS NULL OR hr.fechaHoraInicio >= :fechaDesdeParam) " +
            "AND (:fechaHastaParam IS NULL OR hr.fechaHoraInicio <= :fechaHastaParam) " +
-           "ORDER BY hr.fechaCreacionHistorial DESC")
+           "AND (:antesDeFechaParam IS NULL OR (hr.fechaCreacionHistorial <= :antesDeFechaParam " +
+           "     AND (hr.fechaCreacionHistorial < :antesDeFechaParam OR hr.id < :antesDeIdParam))) " +
+           "ORDER BY hr.fechaCreacionHistorial DESC, hr.id DESC")
     List<HistorialReserva> findFilteredHistorial(
-            @Param("usuarioInfoParam") String usuarioInfoParam,
             @Param("fechaDesdeParam") LocalDateTime fechaDesdeParam,
-            @Param("fechaHastaParam") LocalDateTime fechaHastaParam
+            @Param("fechaHastaParam") LocalDateTime fechaHastaParam,
+            @Param("antesDeFechaParam") LocalDateTime antesDeFechaParam,
+            @Param("antesDeIdParam") Long antesDeIdParam,
+            Limit limit
     );
+
+    // Estadísticas agrupadas por las columnas de ids (con índice), de mayor a menor cantidad
+    @Query("SELECT new com.gestion_reservas.abm.dto.ConteoHistorial(hr.salaId, s.nombre, COUNT(hr)) " +
+           "FROM HistorialReserva hr LEFT JOIN Sala s ON s.id = hr.salaId " +
+           "WHERE hr.salaId IS NOT NULL GROUP BY hr.salaId, s.nombre ORDER BY COUNT(hr) DESC, hr.salaId")
+    List<ConteoHistorial> contarPorSala();
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ConteoHistorial(hr.usuarioId, u.username, COUNT(hr)) " +
+           "FROM HistorialReserva hr LEFT JOIN Usuario u ON u.id = hr.usuarioId " +
+           "WHERE hr.usuarioId IS NOT NULL GROUP BY hr.usuarioId, u.username ORDER BY COUNT(hr) DESC, hr.usuarioId")
+    List<ConteoHistorial> contarPorUsuario();
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ConteoHistorial(ai, a.nombre, COUNT(hr)) " +
+           "FROM HistorialReserva hr JOIN hr.articuloIds ai LEFT JOIN Articulo a ON a.id = ai " +
+           "GROUP BY ai, a.nombre ORDER BY COUNT(hr) DESC, ai")
+    List<ConteoHistorial> contarPorArticulo();
+
+    // Feed de cambios: el id crece en el orden en que se escriben las entradas
+    List<HistorialReserva> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT MAX(hr.id) FROM HistorialReserva hr")
+    Long findMaxId();
+
+    // Recorrido para exportar (hasta un id fijado de antemano): se lee de a "fetch size" filas y sin
+    // snapshot para dirty checking. Debe consumirse dentro de una transacción.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT hr FROM HistorialReserva hr WHERE hr.id <= :hastaId ORDER BY hr.id")
+    Stream<HistorialReserva> streamHasta(@Param("hastaId") long hastaId);
 }
@@ -1,12 +1,18 @@
 package com.gestion_reservas.abm.repository;
 
+import com.gestion_reservas.abm.dto.ArticuloDeReserva;
+import com.gestion_reservas.abm.dto.ReservaResumen;
+import com.gestion_reservas.abm.indice.IntervaloReserva;
+import com.gestion_reservas.abm.indice.OcupacionArticulo;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.Reserva;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
@@ -18,27 +24,63 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
         @Param("fechaHoraFin") LocalDateTime fechaHoraFin
     );
 
-    List<Reserva> findBySalaIdAndFechaHoraInicioBetween(
-        Long salaId,
-        LocalDateTime startOfDay,
-        LocalDateTime endOfDay
+    @Query("SELECT COUNT(r) > 0 FROM Reserva r WHERE r.sala.id = :salaId AND r.fechaHoraInicio < :fechaHoraFin AND r.fechaHoraFin > :fechaHoraInicio")
+    boolean existsReservaSolapada(
+        @Param("salaId") Long salaId,
+        @Param("fechaHoraInicio") LocalDateTime fechaHoraInicio,
+        @Param("fechaHoraFin") LocalDateTime fechaHoraFin
     );
 
-    List<Reserva> findByUsuarioId(Long usuarioId);
+    // Carga liviana (sin entidades) para construir el índice de disponibilidad
+    @Query("SELECT new com.gestion_reservas.abm.indice.IntervaloReserva(r.id, r.sala.id, r.fechaHoraInicio, r.fechaHoraFin) FROM Reserva r")
+    List<IntervaloReserva> findAllIntervalos();
 
-    @Query("SELECT DISTINCT art.id FROM Reserva r JOIN r.articulos art WHERE r.fechaHoraInicio < :fechaHoraFin AND r.fechaHoraFin > :fechaHoraInicio AND art.id IN :articuloIds")
-    List<Long> findConflictingArticuloIds(
-        @Param("articuloIds") List<Long> articuloIds,
+    @Query("SELECT new com.gestion_reservas.abm.indice.OcupacionArticulo(art.id, r.id, r.fechaHoraInicio, r.fechaHoraFin) FROM Reserva r JOIN r.articulos art")
+    List<OcupacionArticulo> findAllOcupacionArticulos();
+
+    @Query("SELECT new com.gestion_reservas.abm.indice.IntervaloReserva(r.id, r.sala.id, r.fechaHoraInicio, r.fechaHoraFin) FROM Reserva r " +
+           "WHERE r.sala.id IN :salaIds AND r.fechaHoraInicio < :fechaHoraFin AND r.fechaHoraFin > :fechaHoraInicio")
+    List<IntervaloReserva> findIntervalosEnRango(
+        @Param("salaIds") Collection<Long> salaIds,
         @Param("fechaHoraInicio") LocalDateTime fechaHoraInicio,
         @Param("fechaHoraFin") LocalDateTime fechaHoraFin
     );
 
-    @Query("SELECT DISTINCT art.id FROM Reserva r JOIN r.articulos art WHERE r.fechaHoraInicio < :fechaHoraFin AND r.fechaHoraFin > :fechaHoraInicio")
-    List<Long> findAllArticuloIdsInReservasSolapadas(
+    @Query("SELECT new com.gestion_reservas.abm.indice.OcupacionArticulo(art.id, r.id, r.fechaHoraInicio, r.fechaHoraFin) FROM Reserva r JOIN r.articulos art " +
+           "WHERE art.id IN :articuloIds AND r.fechaHoraInicio < :fechaHoraFin AND r.fechaHoraFin > :fechaHoraInicio")
+    List<OcupacionArticulo> findOcupacionArticulosEnRango(
+        @Param("articuloIds") Collection<Long> articuloIds,
         @Param("fechaHoraInicio") LocalDateTime fechaHoraInicio,
         @Param("fechaHoraFin") LocalDateTime fechaHoraFin
     );
 
+    // Listados: una consulta para las filas y otra para los artículos, sin importar cuántas reservas haya
+    // Paginación por clave sobre (fechaHoraInicio, id); la primera condición permite recorrer el índice por rango
+    @Query("SELECT new com.gestion_reservas.abm.dto.ReservaResumen(r.id, u.nombre, u.apellido, s.nombre, r.fechaHoraInicio, r.fechaHoraFin) " +
+           "FROM Reserva r JOIN r.usuario u JOIN r.sala s ORDER BY r.fechaHoraInicio, r.id")
+    List<ReservaResumen> findResumenes(Limit limit);
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ReservaResumen(r.id, u.nombre, u.apellido, s.nombre, r.fechaHoraInicio, r.fechaHoraFin) " +
+           "FROM Reserva r JOIN r.usuario u JOIN r.sala s " +
+           "WHERE r.fechaHoraInicio >= :inicio AND (r.fechaHoraInicio > :inicio OR r.id > :id) " +
+           "ORDER BY r.fechaHoraInicio, r.id")
+    List<ReservaResumen> findResumenesDespuesDe(@Param("inicio") LocalDateTime inicio, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ArticuloDeReserva(r.id, a.nombre) FROM Reserva r JOIN r.articulos a " +
+           "WHERE r.id IN :reservaIds ORDER BY a.nombre")
+    List<ArticuloDeReserva> findArticulosDeReservas(@Param("reservaIds") Collection<Long> reservaIds);
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ReservaResumen(r.id, u.nombre, u.apellido, s.nombre, r.fechaHoraInicio, r.fechaHoraFin) " +
+           "FROM Reserva r JOIN r.usuario u JOIN r.sala s WHERE u.id = :usuarioId ORDER BY r.fechaHoraInicio, r.id")
+    List<ReservaResumen> findResumenesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT new com.gestion_reservas.abm.dto.ArticuloDeReserva(r.id, a.nombre) FROM Reserva r JOIN r.articulos a " +
+           "WHERE r.usuario.id = :usuarioId ORDER BY a.nombre")
+    List<ArticuloDeReserva> findArticulosDeReservasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT r.id FROM Reserva r WHERE r.usuario.id = :usuarioId")
+    List<Long> findIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
     // Encuentra todas las reservas que contienen un artículo específico
     List<Reserva> findByArticulosContaining(Articulo articulo);
 }
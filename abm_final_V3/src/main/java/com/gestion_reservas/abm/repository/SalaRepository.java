@@ -1,7 +1,18 @@
 package com.gestion_reservas.abm.repository;
 
+import com.gestion_reservas.abm.indice.CapacidadSala;
 import com.gestion_reservas.abm.model.Sala;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface SalaRepository extends JpaRepository<Sala, Long> {
+
+    @Query("SELECT new com.gestion_reservas.abm.indice.CapacidadSala(s.id, s.capacidad) FROM Sala s")
+    List<CapacidadSala> findAllCapacidades();
+
+    // Paginación por clave: las que siguen al último id visto
+    List<Sala> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,33 @@
+package com.gestion_reservas.abm.repository;
+
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.SerieReserva;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SerieReservaRepository extends JpaRepository<SerieReserva, Long> {
+
+    // Trae las colecciones en la misma consulta: el índice se arma fuera de una sesión
+    @Query("SELECT DISTINCT s FROM SerieReserva s LEFT JOIN FETCH s.articulos LEFT JOIN FETCH s.excepciones")
+    List<SerieReserva> findAllConDetalle();
+
+    // Series de la sala (o que usan alguno de los artículos) con alguna ocurrencia posible entre las dos fechas
+    @Query("SELECT DISTINCT s FROM SerieReserva s LEFT JOIN FETCH s.articulos LEFT JOIN FETCH s.excepciones " +
+           "WHERE s.fechaInicio <= :hasta AND s.fechaFin >= :desde " +
+           "AND (s.sala.id = :salaId OR EXISTS (SELECT 1 FROM SerieReserva s2 JOIN s2.articulos a WHERE s2 = s AND a.id IN :articuloIds))")
+    List<SerieReserva> findCandidatas(
+        @Param("salaId") Long salaId,
+        @Param("articuloIds") List<Long> articuloIds,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    @Query("SELECT s.id FROM SerieReserva s WHERE s.usuario.id = :usuarioId")
+    List<Long> findIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    List<SerieReserva> findByArticulosContaining(Articulo articulo);
+}
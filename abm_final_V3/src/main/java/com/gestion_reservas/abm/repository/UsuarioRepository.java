@@ -1,10 +1,20 @@
 package com.gestion_reservas.abm.repository;
 
 import com.gestion_reservas.abm.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+    // En la caché de consultas: cada inicio de sesión busca por email
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Usuario> findByUsername(String username);
+
+    // Paginación por clave: los que siguen al último id visto
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,366 @@
+package com.gestion_reservas.abm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gestion_reservas.abm.dto.ConteoHistorial;
+import com.gestion_reservas.abm.dto.EstadisticasHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import com.gestion_reservas.abm.repository.FilasHistorial;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Historial particionado por mes (mes de la fecha de inicio de la reserva). Los últimos
+ * "historial.archivo.meses-vivos" meses quedan en historial_reservas; los anteriores se pasan a segmentos
+ * de solo lectura, un archivo NDJSON comprimido con gzip por mes, registrados en historial_segmentos.
+ * Quien lee el archivo pide un rango de meses y solo se abren los segmentos de ese rango. Cada segmento
+ * guarda además sus cantidades por sala, usuario y artículo (historial_segmentos_conteos), así las
+ * estadísticas incluyen los meses archivados sin abrir los archivos.
+ */
+@Component
+public class ArchivoHistorial {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoHistorial.class);
+
+    private static final int FILAS_POR_LECTURA = 1000;
+
+    private static final String FILAS_DEL_MES = "SELECT " + FilasHistorial.COLUMNAS + " FROM historial_reservas h "
+            + "WHERE h.fecha_hora_inicio >= ? AND h.fecha_hora_inicio < ? AND h.id > ? ORDER BY h.id LIMIT ?";
+    private static final String CONDICION_DEL_MES = "SELECT h.id FROM historial_reservas h "
+            + "WHERE h.fecha_hora_inicio >= ? AND h.fecha_hora_inicio < ? AND h.id <= ?";
+    private static final String INSERT_SEGMENTO = "INSERT INTO historial_segmentos "
+            + "(mes, archivo, primer_id, ultimo_id, filas, fecha_archivado, con_conteos) VALUES (?, ?, ?, ?, ?, ?, TRUE)";
+    private static final String INSERT_CONTEO = "INSERT INTO historial_segmentos_conteos (segmento_id, tipo, clave_id, cantidad) "
+            + "VALUES (?, ?, ?, ?)";
+    // Suma de todos los segmentos con el nombre actual de cada sala, usuario o artículo (null si ya no existe)
+    private static final String CONTEOS_ARCHIVADOS = "SELECT c.clave_id, n.%s AS nombre, SUM(c.cantidad) AS cantidad "
+            + "FROM historial_segmentos_conteos c LEFT JOIN %s n ON n.id = c.clave_id WHERE c.tipo = ? GROUP BY c.clave_id, n.%s";
+
+    private static final String TIPO_SALA = "SALA";
+    private static final String TIPO_USUARIO = "USUARIO";
+    private static final String TIPO_ARTICULO = "ARTICULO";
+
+    // Recibe cada entrada leída de un segmento
+    @FunctionalInterface
+    public interface LectorEntrada {
+        void leer(HistorialReserva entrada) throws IOException;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Path directorio;
+    private final int mesesVivos;
+
+    public ArchivoHistorial(@Value("${historial.archivo.directorio:./data/historial-archivo}") String directorio,
+                            @Value("${historial.archivo.meses-vivos:12}") int mesesVivos) {
+        this.directorio = Paths.get(directorio);
+        this.mesesVivos = mesesVivos;
+    }
+
+    // Primer mes que se conserva en la tabla: el actual y los "mesesVivos - 1" anteriores
+    public YearMonth primerMesVivo() {
+        return YearMonth.now().minusMonths(Math.max(1, mesesVivos) - 1L);
+    }
+
+    // Segmentos archivados antes de que se guardaran sus cantidades: se cuentan una vez leyendo el archivo
+    @PostConstruct
+    public void completarConteos() throws IOException {
+        List<Map<String, Object>> segmentos = jdbcTemplate.queryForList(
+                "SELECT id, archivo FROM historial_segmentos WHERE NOT con_conteos ORDER BY id");
+        for (Map<String, Object> segmento : segmentos) {
+            Conteos conteos = new Conteos();
+            String archivo = (String) segmento.get("archivo");
+            if (!leerSegmento(archivo, conteos::sumar)) {
+                continue;
+            }
+            long segmentoId = ((Number) segmento.get("id")).longValue();
+            transactionTemplate.executeWithoutResult(estado -> {
+                jdbcTemplate.batchUpdate(INSERT_CONTEO, conteos.filas(segmentoId));
+                jdbcTemplate.update("UPDATE historial_segmentos SET con_conteos = TRUE WHERE id = ?", segmentoId);
+            });
+            log.info("Cantidades del segmento {} calculadas desde el archivo", archivo);
+        }
+    }
+
+    @Scheduled(cron = "${historial.archivo.cron:-}")
+    public void archivarMesesViejos() {
+        archivarAnterioresA(primerMesVivo());
+    }
+
+    /**
+     * Pasa al archivo todos los meses anteriores a "limite" que todavía tengan filas en la tabla.
+     * Devuelve la cantidad de filas archivadas.
+     */
+    public synchronized int archivarAnterioresA(YearMonth limite) {
+        int archivadas = 0;
+        Timestamp tope = Timestamp.valueOf(limite.atDay(1).atStartOfDay());
+        Timestamp masViejo;
+        while ((masViejo = jdbcTemplate.queryForObject(
+                "SELECT MIN(fecha_hora_inicio) FROM historial_reservas WHERE fecha_hora_inicio < ?", Timestamp.class, tope)) != null) {
+            archivadas += archivarMes(YearMonth.from(masViejo.toLocalDateTime()));
+        }
+        return archivadas;
+    }
+
+    /**
+     * Escribe las filas del mes en un segmento nuevo y recién entonces las borra de la tabla (con sus
+     * artículos y tokens de búsqueda), en la misma transacción que registra el segmento. Las filas del mes
+     * que lleguen mientras tanto tienen un id mayor al último archivado y quedan para la próxima pasada.
+     */
+    private int archivarMes(YearMonth mes) {
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+        try {
+            Files.createDirectories(directorio);
+            Path temporal = Files.createTempFile(directorio, "historial-" + mes, ".tmp");
+            long primerId = 0;
+            long ultimoId = 0;
+            int filas = 0;
+            Conteos conteos = new Conteos();
+            try (BufferedWriter escritor = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temporal)), StandardCharsets.UTF_8))) {
+                List<HistorialReserva> lote;
+                do {
+                    lote = jdbcTemplate.query(FILAS_DEL_MES, FilasHistorial.MAPEO, desde, hasta, ultimoId, FILAS_POR_LECTURA);
+                    cargarArticulos(lote);
+                    for (HistorialReserva entrada : lote) {
+                        escritor.write(objectMapper.writeValueAsString(aJson(entrada)));
+                        escritor.write('\n');
+                        conteos.sumar(entrada);
+                        if (filas++ == 0) {
+                            primerId = entrada.getId();
+                        }
+                        ultimoId = entrada.getId();
+                    }
+                } while (lote.size() == FILAS_POR_LECTURA);
+            }
+            if (filas == 0) {
+                Files.delete(temporal);
+                return 0;
+            }
+
+            Path segmento = directorio.resolve("historial-" + mes + "-" + primerId + ".ndjson.gz");
+            Files.move(temporal, segmento, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                registrarSegmento(mes, segmento, primerId, ultimoId, filas, conteos, desde, hasta);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(segmento); // Las filas siguen en la tabla: sin registro, el archivo sobra
+                throw e;
+            }
+            log.info("Historial de {} archivado: {} filas en {}", mes, filas, segmento.getFileName());
+            return filas;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo archivar el historial de " + mes, e);
+        }
+    }
+
+    private void registrarSegmento(YearMonth mes, Path segmento, long primerId, long ultimoId, int filas, Conteos conteos,
+                                   Timestamp desde, Timestamp hasta) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            jdbcTemplate.update(INSERT_SEGMENTO, Date.valueOf(mes.atDay(1)), segmento.getFileName().toString(),
+                    primerId, ultimoId, filas, Timestamp.valueOf(LocalDateTime.now()));
+            Long segmentoId = jdbcTemplate.queryForObject("SELECT id FROM historial_segmentos WHERE archivo = ?",
+                    Long.class, segmento.getFileName().toString());
+            jdbcTemplate.batchUpdate(INSERT_CONTEO, conteos.filas(segmentoId));
+            jdbcTemplate.update("DELETE FROM historial_tokens WHERE historial_id IN (" + CONDICION_DEL_MES + ")", desde, hasta, ultimoId);
+            jdbcTemplate.update("DELETE FROM historial_articulos WHERE historial_id IN (" + CONDICION_DEL_MES + ")", desde, hasta, ultimoId);
+            jdbcTemplate.update("DELETE FROM historial_reservas WHERE id IN (" + CONDICION_DEL_MES + ")", desde, hasta, ultimoId);
+        });
+    }
+
+    /**
+     * Recorre, en orden de mes y de id, las entradas archivadas de los meses entre "desde" y "hasta"
+     * (ambos incluidos; null para no acotar ese extremo). Los segmentos fuera del rango no se abren, y uno
+     * registrado cuyo archivo ya no está se informa en el log y se saltea.
+     */
+    public void recorrer(YearMonth desde, YearMonth hasta, LectorEntrada lector) throws IOException {
+        LocalDate primerDia = desde != null ? desde.atDay(1) : LocalDate.of(1, 1, 1);
+        LocalDate ultimoDia = hasta != null ? hasta.atDay(1) : LocalDate.of(9999, 12, 1);
+        List<String> archivos = jdbcTemplate.queryForList(
+                "SELECT archivo FROM historial_segmentos WHERE mes BETWEEN ? AND ? ORDER BY mes, primer_id",
+                String.class, Date.valueOf(primerDia), Date.valueOf(ultimoDia));
+        for (String archivo : archivos) {
+            leerSegmento(archivo, lector);
+        }
+    }
+
+    /**
+     * Las entradas archivadas con id mayor a "id", de a lo sumo "limite" y en orden de id. Solo se abren
+     * los segmentos con algún id mayor, de menor a mayor primer id, y se deja de leer cuando el siguiente
+     * segmento ya no puede aportar ids más chicos que los juntados.
+     */
+    public List<HistorialReserva> entradasDespuesDe(long id, int limite) throws IOException {
+        List<Map<String, Object>> segmentos = jdbcTemplate.queryForList(
+                "SELECT archivo, primer_id FROM historial_segmentos WHERE ultimo_id > ? ORDER BY primer_id", id);
+        // Montículo con el id más alto arriba: se descarta en cuanto aparece uno menor
+        PriorityQueue<HistorialReserva> menores = new PriorityQueue<>(Comparator.comparing(HistorialReserva::getId).reversed());
+        for (Map<String, Object> segmento : segmentos) {
+            if (menores.size() >= limite && ((Number) segmento.get("primer_id")).longValue() > menores.peek().getId()) {
+                break;
+            }
+            leerSegmento((String) segmento.get("archivo"), entrada -> {
+                if (entrada.getId() > id) {
+                    menores.add(entrada);
+                    if (menores.size() > limite) {
+                        menores.poll();
+                    }
+                }
+            });
+        }
+        List<HistorialReserva> entradas = new ArrayList<>(menores);
+        entradas.sort(Comparator.comparing(HistorialReserva::getId));
+        return entradas;
+    }
+
+    // Cantidades por sala, usuario y artículo de todos los segmentos, sin orden
+    public EstadisticasHistorial estadisticasArchivadas() {
+        return new EstadisticasHistorial(conteosArchivados(TIPO_SALA, "sala", "nombre"),
+                conteosArchivados(TIPO_USUARIO, "usuario", "username"),
+                conteosArchivados(TIPO_ARTICULO, "articulo", "nombre"));
+    }
+
+    private List<ConteoHistorial> conteosArchivados(String tipo, String tabla, String columnaNombre) {
+        return jdbcTemplate.query(String.format(CONTEOS_ARCHIVADOS, columnaNombre, tabla, columnaNombre),
+                (rs, fila) -> new ConteoHistorial(rs.getLong("clave_id"), rs.getString("nombre"), rs.getLong("cantidad")), tipo);
+    }
+
+    // Devuelve false si el archivo del segmento no está (por ejemplo, si se perdió el directorio del archivo)
+    private boolean leerSegmento(String archivo, LectorEntrada lector) throws IOException {
+        Path ruta = directorio.resolve(archivo);
+        InputStream entrada;
+        try {
+            entrada = Files.newInputStream(ruta);
+        } catch (NoSuchFileException e) {
+            log.warn("Falta el segmento de historial {}; se saltea", ruta.toAbsolutePath());
+            return false;
+        }
+        try (BufferedReader lectura = new BufferedReader(new InputStreamReader(new GZIPInputStream(entrada), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lectura.readLine()) != null) {
+                lector.leer(deJson(objectMapper.readTree(linea)));
+            }
+        }
+        return true;
+    }
+
+    // Último mes con algún segmento, o null si todavía no se archivó nada
+    public YearMonth primerMesArchivado() {
+        Date mes = jdbcTemplate.queryForObject("SELECT MIN(mes) FROM historial_segmentos", Date.class);
+        return mes != null ? YearMonth.from(mes.toLocalDate()) : null;
+    }
+
+    public YearMonth ultimoMesArchivado() {
+        Date mes = jdbcTemplate.queryForObject("SELECT MAX(mes) FROM historial_segmentos", Date.class);
+        return mes != null ? YearMonth.from(mes.toLocalDate()) : null;
+    }
+
+    public long ultimoIdArchivado() {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(ultimo_id) FROM historial_segmentos", Long.class);
+        return id != null ? id : 0L;
+    }
+
+    private void cargarArticulos(List<HistorialReserva> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Map<Long, HistorialReserva> porId = lote.stream().collect(Collectors.toMap(HistorialReserva::getId, Function.identity()));
+        jdbcTemplate.query("SELECT historial_id, articulo_id FROM historial_articulos WHERE historial_id BETWEEN ? AND ?",
+                rs -> {
+                    HistorialReserva entrada = porId.get(rs.getLong("historial_id"));
+                    if (entrada != null) {
+                        entrada.getArticuloIds().add(rs.getLong("articulo_id"));
+                    }
+                }, lote.get(0).getId(), lote.get(lote.size() - 1).getId());
+    }
+
+    // Igual que la exportación, más los ids de artículos (que la entidad no serializa)
+    private ObjectNode aJson(HistorialReserva entrada) {
+        ObjectNode nodo = objectMapper.valueToTree(entrada);
+        ArrayNode articulos = nodo.putArray("articuloIds");
+        entrada.getArticuloIds().forEach(articulos::add);
+        return nodo;
+    }
+
+    private HistorialReserva deJson(JsonNode nodo) throws IOException {
+        HistorialReserva entrada = objectMapper.treeToValue(nodo, HistorialReserva.class);
+        Set<Long> articuloIds = new HashSet<>();
+        nodo.path("articuloIds").forEach(id -> articuloIds.add(id.asLong()));
+        entrada.setArticuloIds(articuloIds);
+        return entrada;
+    }
+
+    // Entradas por sala, usuario y artículo de un segmento
+    private static final class Conteos {
+
+        private final Map<Long, Long> salas = new HashMap<>();
+        private final Map<Long, Long> usuarios = new HashMap<>();
+        private final Map<Long, Long> articulos = new HashMap<>();
+
+        void sumar(HistorialReserva entrada) {
+            if (entrada.getSalaId() != null) {
+                salas.merge(entrada.getSalaId(), 1L, Long::sum);
+            }
+            if (entrada.getUsuarioId() != null) {
+                usuarios.merge(entrada.getUsuarioId(), 1L, Long::sum);
+            }
+            for (Long articuloId : entrada.getArticuloIds()) {
+                articulos.merge(articuloId, 1L, Long::sum);
+            }
+        }
+
+        List<Object[]> filas(long segmentoId) {
+            List<Object[]> filas = new ArrayList<>();
+            salas.forEach((id, cantidad) -> filas.add(new Object[]{segmentoId, TIPO_SALA, id, cantidad}));
+            usuarios.forEach((id, cantidad) -> filas.add(new Object[]{segmentoId, TIPO_USUARIO, id, cantidad}));
+            articulos.forEach((id, cantidad) -> filas.add(new Object[]{segmentoId, TIPO_ARTICULO, id, cantidad}));
+            return filas;
+        }
+    }
+}
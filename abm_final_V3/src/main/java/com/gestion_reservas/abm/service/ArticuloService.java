@@ -1,13 +1,21 @@
 package com.gestion_reservas.abm.service;
 
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.SerieReserva;
 import com.gestion_reservas.abm.repository.ArticuloRepository;
 import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -22,20 +30,46 @@ public class ArticuloService {
     @Autowired
     private ReservaRepository reservaRepository; // Inyectar el repositorio de reservas
 
+    @Autowired
+    private SerieReservaRepository serieReservaRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    // Los cambios de artículos tienen que pasar por este servicio para que la copia en memoria se descarte
+    private final CacheCatalogo<Articulo> catalogo;
+
+    public ArticuloService(@Value("${catalogos.cache.ttl-segundos:300}") long ttlSegundos,
+                           @Value("${catalogos.cache.max-elementos:1000}") int maxElementos) {
+        this.catalogo = new CacheCatalogo<>(() -> articuloRepository.findAll(), Articulo::getId, Duration.ofSeconds(ttlSegundos), maxElementos);
+    }
+
     public List<Articulo> findAll() {
-        return articuloRepository.findAll();
+        return catalogo.todos();
+    }
+
+    // Página de hasta "tamano" articulos con id mayor a "despuesDeId" (null para la primera)
+    public Pagina<Articulo> listarPagina(Long despuesDeId, int tamano) {
+        int acotado = Pagina.acotar(tamano);
+        long desde = despuesDeId != null ? despuesDeId : 0L;
+        return Pagina.de(articuloRepository.findByIdGreaterThanOrderByIdAsc(desde, Limit.of(acotado + 1)), acotado);
     }
 
     public Set<Articulo> findAllByIds(List<Long> ids) {
-        return new HashSet<>(articuloRepository.findAllById(ids));
+        return new HashSet<>(catalogo.porIds(ids, articuloRepository::findAllById));
     }
 
     public Optional<Articulo> findById(Long id) {
-        return articuloRepository.findById(id);
+        return catalogo.porId(id, articuloRepository::findById);
+    }
+
+    public EstadisticasCache estadisticasCache() {
+        return catalogo.estadisticas();
     }
 
     public void save(Articulo articulo) {
         articuloRepository.save(articulo);
+        catalogo.invalidar();
     }
 
     @Transactional
@@ -52,8 +86,15 @@ public class ArticuloService {
                 reserva.getArticulos().remove(articulo);
             }
 
-            // 3. Eliminar el artículo una vez que ya no está vinculado a ninguna reserva
+            // 3. Lo mismo con las series recurrentes
+            for (SerieReserva serie : serieReservaRepository.findByArticulosContaining(articulo)) {
+                serie.getArticulos().remove(articulo);
+            }
+
+            // 4. Eliminar el artículo una vez que ya no está vinculado a ninguna reserva
             articuloRepository.delete(articulo);
+            indiceDisponibilidad.eliminarArticulo(id);
+            catalogo.invalidar();
         }
     }
 }
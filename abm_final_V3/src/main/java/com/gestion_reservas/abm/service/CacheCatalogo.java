@@ -0,0 +1,127 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Copia en memoria de un catálogo chico (salas, artículos) que cambia pocas veces al día. Se carga entero
+ * la primera vez que se pide y vence a los "ttl"; cada alta, edición o baja la descarta. Si el catálogo
+ * crece por encima de "maxElementos" deja de guardarse y las consultas van directo a la base.
+ * Los elementos son entidades desvinculadas y compartidas: se usan solo para leer.
+ */
+public class CacheCatalogo<T> {
+
+    private record Contenido<T>(List<T> elementos, Map<Long, T> porId, long cargadoEn) {
+    }
+
+    private final Supplier<List<T>> cargar;
+    private final Function<T, Long> id;
+    private final long ttlNanos;
+    private final int maxElementos;
+
+    private volatile Contenido<T> contenido;
+    private volatile boolean demasiadoGrande = false;
+    private long generacion = 0; // Cambia con cada invalidación; protegida por "this"
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CacheCatalogo(Supplier<List<T>> cargar, Function<T, Long> id, Duration ttl, int maxElementos) {
+        this.cargar = cargar;
+        this.id = id;
+        this.ttlNanos = ttl.toNanos();
+        this.maxElementos = maxElementos;
+    }
+
+    public List<T> todos() {
+        return vigente().elementos();
+    }
+
+    public Optional<T> porId(Long clave, Function<Long, Optional<T>> desdeBase) {
+        if (demasiadoGrande) {
+            fallos.incrementAndGet();
+            return desdeBase.apply(clave);
+        }
+        return Optional.ofNullable(vigente().porId().get(clave));
+    }
+
+    // Los que existan, como findAllById
+    public List<T> porIds(Collection<Long> claves, Function<Collection<Long>, List<T>> desdeBase) {
+        if (demasiadoGrande) {
+            fallos.incrementAndGet();
+            return desdeBase.apply(claves);
+        }
+        Map<Long, T> porId = vigente().porId();
+        return claves.stream().distinct().map(porId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Descarta la copia. Dentro de una transacción se descarta otra vez al terminar, para que una lectura
+     * hecha antes del commit no deje guardado el estado anterior.
+     */
+    public void invalidar() {
+        invalidaciones.incrementAndGet();
+        descartar();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar();
+                }
+            });
+        }
+    }
+
+    public EstadisticasCache estadisticas() {
+        Contenido<T> actual = contenido;
+        return new EstadisticasCache(aciertos.get(), fallos.get(), invalidaciones.get(),
+                actual != null ? actual.elementos().size() : 0);
+    }
+
+    private Contenido<T> vigente() {
+        Contenido<T> actual = contenido;
+        if (actual != null && System.nanoTime() - actual.cargadoEn() < ttlNanos) {
+            aciertos.incrementAndGet();
+            return actual;
+        }
+        fallos.incrementAndGet();
+        long generacionLeida;
+        synchronized (this) {
+            generacionLeida = generacion;
+        }
+        List<T> elementos = List.copyOf(cargar.get());
+        Map<Long, T> porId = new LinkedHashMap<>();
+        for (T elemento : elementos) {
+            porId.put(id.apply(elemento), elemento);
+        }
+        Contenido<T> nuevo = new Contenido<>(elementos, porId, System.nanoTime());
+        synchronized (this) {
+            demasiadoGrande = elementos.size() > maxElementos;
+            // Si hubo una invalidación mientras se leía, lo leído puede estar viejo: se usa, pero no se guarda
+            if (!demasiadoGrande && generacion == generacionLeida) {
+                contenido = nuevo;
+            }
+        }
+        return nuevo;
+    }
+
+    private synchronized void descartar() {
+        generacion++;
+        contenido = null;
+        demasiadoGrande = false;
+    }
+}
@@ -0,0 +1,104 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.model.Usuario;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Copias de los usuarios con sesión iniciada, para no leer el Usuario de la base en cada pedido. Guarda
+ * hasta "maxElementos" (descarta el menos usado) y cada copia vence a los "ttl". Las copias no traen la
+ * contraseña ni las reservas: sirven para leer y para asignar el usuario a una reserva, no para guardarlo.
+ */
+public class CachePrincipales {
+
+    private record Entrada(Usuario usuario, long cargadoEn) {
+    }
+
+    private final Function<Long, Optional<Usuario>> cargar;
+    private final long ttlNanos;
+
+    // Orden de acceso: el primero es el menos usado; protegido por "this"
+    private final LinkedHashMap<Long, Entrada> entradas;
+    private long generacion = 0; // Cambia con cada invalidación; protegida por "this"
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CachePrincipales(Function<Long, Optional<Usuario>> cargar, Duration ttl, int maxElementos) {
+        this.cargar = cargar;
+        this.ttlNanos = ttl.toNanos();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> masViejo) {
+                return size() > maxElementos;
+            }
+        };
+    }
+
+    public Optional<Usuario> obtener(Long id) {
+        long generacionLeida;
+        synchronized (this) {
+            Entrada entrada = entradas.get(id);
+            if (entrada != null && System.nanoTime() - entrada.cargadoEn() < ttlNanos) {
+                aciertos.incrementAndGet();
+                return Optional.of(entrada.usuario());
+            }
+            generacionLeida = generacion;
+        }
+        fallos.incrementAndGet();
+        Optional<Usuario> copia = cargar.apply(id).map(CachePrincipales::copiar);
+        synchronized (this) {
+            // Si hubo una invalidación mientras se leía, lo leído puede estar viejo: se usa, pero no se guarda
+            if (copia.isPresent() && generacion == generacionLeida) {
+                entradas.put(id, new Entrada(copia.get(), System.nanoTime()));
+            }
+        }
+        return copia;
+    }
+
+    /**
+     * Descarta la copia del usuario. Dentro de una transacción se descarta otra vez al terminar, para que
+     * una lectura hecha antes del commit no deje guardado el estado anterior.
+     */
+    public void invalidar(Long id) {
+        invalidaciones.incrementAndGet();
+        descartar(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(id);
+                }
+            });
+        }
+    }
+
+    public synchronized EstadisticasCache estadisticas() {
+        return new EstadisticasCache(aciertos.get(), fallos.get(), invalidaciones.get(), entradas.size());
+    }
+
+    private synchronized void descartar(Long id) {
+        generacion++;
+        entradas.remove(id);
+    }
+
+    private static Usuario copiar(Usuario usuario) {
+        Usuario copia = new Usuario();
+        copia.setId(usuario.getId());
+        copia.setUsername(usuario.getUsername());
+        copia.setNombre(usuario.getNombre());
+        copia.setApellido(usuario.getApellido());
+        copia.setFechaNacimiento(usuario.getFechaNacimiento());
+        copia.setRol(usuario.getRol());
+        return copia;
+    }
+}
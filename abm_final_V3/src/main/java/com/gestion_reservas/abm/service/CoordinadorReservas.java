@@ -0,0 +1,119 @@
+package com.gestion_reservas.abm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializa las reservas que compiten por el mismo recurso sin bloquear las demás.
+ * Usa "lock striping": cada sala (y cada artículo) se asigna a una franja fija de locks, de modo
+ * que dos reservas de salas distintas casi nunca esperan una por otra. Los locks se toman siempre
+ * en el mismo orden (primero salas, luego artículos, por índice creciente) para evitar deadlocks.
+ */
+@Component
+public class CoordinadorReservas {
+
+    private static final int FRANJAS_POR_DEFECTO = 64;
+
+    private final ReentrantLock[] franjasSala;
+    private final ReentrantLock[] franjasArticulo;
+
+    public CoordinadorReservas() {
+        this(FRANJAS_POR_DEFECTO);
+    }
+
+    @Autowired
+    public CoordinadorReservas(@Value("${reservas.bloqueo.franjas:64}") int franjas) {
+        int cantidad = Integer.highestOneBit(Math.max(1, franjas - 1)) << 1; // potencia de 2
+        franjasSala = crearFranjas(cantidad);
+        franjasArticulo = crearFranjas(cantidad);
+    }
+
+    /**
+     * Ejecuta la acción con los locks de la sala y de los artículos tomados. Si hay una transacción
+     * activa, los locks se liberan recién cuando termina (commit o rollback), así la siguiente reserva
+     * del mismo recurso ya ve la fila confirmada.
+     */
+    public <T> T ejecutar(Long salaId, Collection<Long> articuloIds, Supplier<T> accion) {
+        return ejecutar(List.of(salaId), articuloIds, accion);
+    }
+
+    // Variante para operaciones que tocan varias salas a la vez (por ejemplo, altas en lote)
+    public <T> T ejecutar(Collection<Long> salaIds, Collection<Long> articuloIds, Supplier<T> accion) {
+        List<ReentrantLock> locks = adquirir(salaIds, articuloIds);
+        boolean liberacionDiferida = false;
+        try {
+            T resultado = accion.get();
+            liberacionDiferida = liberarAlFinalizarTransaccion(locks);
+            return resultado;
+        } finally {
+            if (!liberacionDiferida) {
+                liberar(locks);
+            }
+        }
+    }
+
+    int indiceFranja(Long id) {
+        long h = id * 0x9E3779B97F4A7C15L; // dispersión de Fibonacci: ids consecutivos caen en franjas distintas
+        return (int) (h >>> 32) & (franjasSala.length - 1);
+    }
+
+    private List<ReentrantLock> adquirir(Collection<Long> salaIds, Collection<Long> articuloIds) {
+        List<ReentrantLock> locks = new ArrayList<>();
+        agregarFranjas(locks, franjasSala, salaIds);
+        agregarFranjas(locks, franjasArticulo, articuloIds);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
+
+    private void agregarFranjas(List<ReentrantLock> locks, ReentrantLock[] franjas, Collection<Long> ids) {
+        if (ids == null) {
+            return;
+        }
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Long id : ids) {
+            indices.add(indiceFranja(id));
+        }
+        for (Integer indice : indices) {
+            locks.add(franjas[indice]);
+        }
+    }
+
+    private boolean liberarAlFinalizarTransaccion(List<ReentrantLock> locks) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                liberar(locks);
+            }
+        });
+        return true;
+    }
+
+    private static void liberar(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private static ReentrantLock[] crearFranjas(int cantidad) {
+        ReentrantLock[] franjas = new ReentrantLock[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        return franjas;
+    }
+}
@@ -0,0 +1,51 @@
+package com.gestion_reservas.abm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de los textos del historial (usuario, sala y artículos tal como eran al reservar). Cada texto
+ * distinto se guarda una vez en historial_textos y las entradas lo referencian por id. Los ids ya vistos
+ * quedan en memoria: los textos no se borran nunca, así que un id conocido sigue siendo válido.
+ */
+@Component
+public class DiccionarioHistorial {
+
+    private static final String BUSCAR = "SELECT id FROM historial_textos WHERE texto = ?";
+    private static final String AGREGAR = "MERGE INTO historial_textos (texto) KEY (texto) VALUES (?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Id de cada texto (los null se omiten), agregando al diccionario los que falten. Debe llamarse fuera de
+     * la transacción que escribe las entradas: un texto agregado queda confirmado aunque esa escritura falle.
+     */
+    public Map<String, Long> idsDe(Collection<String> textos) {
+        Map<String, Long> resultado = new HashMap<>();
+        for (String texto : textos) {
+            if (texto != null && !resultado.containsKey(texto)) {
+                resultado.put(texto, ids.computeIfAbsent(texto, this::buscarOAgregar));
+            }
+        }
+        return resultado;
+    }
+
+    private Long buscarOAgregar(String texto) {
+        List<Long> encontrado = jdbcTemplate.queryForList(BUSCAR, Long.class, texto);
+        if (encontrado.isEmpty()) {
+            jdbcTemplate.update(AGREGAR, texto);
+            encontrado = jdbcTemplate.queryForList(BUSCAR, Long.class, texto);
+        }
+        return encontrado.get(0);
+    }
+}
@@ -0,0 +1,246 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.indice.IndiceTextoHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Escribe el historial de reservas fuera del camino de la reserva. Las entradas se encolan ya armadas
+ * (solo texto y fechas) en una cola acotada y un hilo propio las inserta en lotes JDBC cada
+ * "historial.escritura.intervalo-ms" o cuando junta "historial.escritura.lote" entradas.
+ * Si la cola se llena, quien encola espera (contrapresión) en lugar de perder entradas, y al cerrar
+ * la aplicación se vacía la cola antes de terminar: un lote que falla se sigue reintentando hasta
+ * "historial.escritura.plazo-cierre-ms" y lo que el hilo no llegó a escribir se intenta una última vez
+ * desde el hilo que cierra, recién cuando el escritor terminó.
+ */
+@Component
+public class EscritorHistorial {
+
+    private static final Logger log = LoggerFactory.getLogger(EscritorHistorial.class);
+
+    private static final String INSERT = "INSERT INTO historial_reservas (id, reserva_id, usuario_id, sala_id, usuario_texto_id, "
+            + "sala_texto_id, articulos_texto_id, fecha_hora_inicio, fecha_hora_fin, fecha_creacion_historial) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ARTICULO = "INSERT INTO historial_articulos (historial_id, articulo_id) VALUES (?, ?)";
+
+    // Misma secuencia y tamaño de bloque que HistorialReserva: cada valor leído reserva los 50 ids anteriores
+    private static final String SIGUIENTES_BLOQUES = "SELECT NEXT VALUE FOR historial_reservas_seq FROM SYSTEM_RANGE(1, ?)";
+    private static final int IDS_POR_BLOQUE = 50;
+
+    // Lo que se espera al hilo además del plazo de cierre: la última escritura empezada antes del plazo
+    private static final long MARGEN_CIERRE_MS = 5_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IndiceTextoHistorial indiceTextoHistorial;
+
+    @Autowired
+    private DiccionarioHistorial diccionarioHistorial;
+
+    private final BlockingQueue<HistorialReserva> cola;
+    private final long intervaloMs;
+    private final int tamanoLote;
+    private final long plazoCierreMs;
+
+    private final AtomicLong pendientes = new AtomicLong(); // encoladas y todavía no escritas
+
+    private Thread hilo;
+    private volatile boolean detenido = false;
+    private volatile long plazoCierre; // System.nanoTime() hasta el que se reintenta al cerrar
+    private volatile List<HistorialReserva> loteDevuelto = List.of(); // lo que el hilo no llegó a escribir
+
+    public EscritorHistorial(@Value("${historial.escritura.capacidad:10000}") int capacidad,
+                             @Value("${historial.escritura.intervalo-ms:200}") long intervaloMs,
+                             @Value("${historial.escritura.lote:200}") int tamanoLote,
+                             @Value("${historial.escritura.plazo-cierre-ms:30000}") long plazoCierreMs) {
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.intervaloMs = intervaloMs;
+        this.tamanoLote = tamanoLote;
+        this.plazoCierreMs = plazoCierreMs;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        hilo = new Thread(this::procesar, "escritor-historial");
+        hilo.start();
+    }
+
+    // Bloquea mientras la cola esté llena
+    public void encolar(Collection<HistorialReserva> entradas) {
+        try {
+            for (HistorialReserva entrada : entradas) {
+                pendientes.incrementAndGet();
+                cola.put(entrada);
+            }
+        } catch (InterruptedException e) {
+            pendientes.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la escritura del historial.", e);
+        }
+    }
+
+    // Espera a que se escriba todo lo encolado hasta ahora (útil para pruebas y para cerrar ordenadamente)
+    public void esperarVaciado() throws InterruptedException {
+        while (pendientes.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Sin interrumpir al hilo: una interrupción en medio de la escritura puede cerrar la conexión JDBC.
+        // Como espera con timeout, nota la bandera en menos de un intervalo y vacía la cola antes de salir.
+        plazoCierre = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plazoCierreMs);
+        detenido = true;
+        hilo.join(plazoCierreMs + MARGEN_CIERRE_MS);
+        if (hilo.isAlive()) {
+            // Sigue en medio de una escritura: vaciar la cola desde acá competiría con él
+            log.error("El escritor del historial no terminó a tiempo; quedan {} entradas sin confirmar", pendientes.get());
+            return;
+        }
+        // El hilo terminó: lo que devolvió y lo que quede en la cola se intenta una última vez acá mismo
+        List<HistorialReserva> restantes = new ArrayList<>(loteDevuelto);
+        cola.drainTo(restantes);
+        if (restantes.isEmpty()) {
+            return;
+        }
+        try {
+            escribir(restantes);
+        } catch (RuntimeException e) {
+            log.error("Se descartan {} entradas de historial: la base no está disponible al cerrar", restantes.size(), e);
+        }
+        pendientes.addAndGet(-restantes.size());
+    }
+
+    private void procesar() {
+        List<HistorialReserva> lote = new ArrayList<>(tamanoLote);
+        while (!detenido || !cola.isEmpty() || !lote.isEmpty()) {
+            try {
+                juntarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                loteDevuelto = List.copyOf(lote);
+                return;
+            }
+            if (lote.isEmpty()) {
+                continue;
+            }
+            try {
+                escribir(lote);
+                pendientes.addAndGet(-lote.size());
+                lote.clear();
+            } catch (RuntimeException e) {
+                if (detenido && System.nanoTime() - plazoCierre >= 0) {
+                    // Vencido el plazo, el lote queda para detener() en lugar de perderse
+                    log.error("No se pudo escribir un lote de {} entradas de historial antes del plazo de cierre", lote.size(), e);
+                    loteDevuelto = List.copyOf(lote);
+                    return;
+                }
+                log.error("No se pudo escribir un lote de {} entradas de historial; se reintenta", lote.size(), e);
+                esperarReintento();
+            }
+        }
+    }
+
+    // Espera la primera entrada y junta más hasta llenar el lote o cumplir el intervalo
+    private void juntarLote(List<HistorialReserva> lote) throws InterruptedException {
+        if (lote.isEmpty()) {
+            HistorialReserva primera = cola.poll(intervaloMs, TimeUnit.MILLISECONDS);
+            if (primera == null) {
+                return;
+            }
+            lote.add(primera);
+        }
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        while (lote.size() < tamanoLote && !detenido) {
+            cola.drainTo(lote, tamanoLote - lote.size());
+            long restante = limite - System.nanoTime();
+            if (lote.size() >= tamanoLote || restante <= 0) {
+                break;
+            }
+            HistorialReserva siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+            if (siguiente != null) {
+                lote.add(siguiente);
+            }
+        }
+        cola.drainTo(lote, tamanoLote - lote.size());
+    }
+
+    // Las entradas y sus tokens de búsqueda se confirman juntos: si algo falla, el reintento parte de cero.
+    // Los textos nuevos se agregan al diccionario antes, fuera de esa transacción.
+    private void escribir(List<HistorialReserva> lote) {
+        asignarIds(lote);
+        Map<String, Long> textos = diccionarioHistorial.idsDe(lote.stream()
+                .flatMap(historial -> Stream.of(historial.getUsuarioInfo(), historial.getSalaInfo(), historial.getArticulosInfo()))
+                .collect(Collectors.toList()));
+        transactionTemplate.executeWithoutResult(estado -> {
+            jdbcTemplate.batchUpdate(INSERT, lote, lote.size(), (ps, historial) -> {
+                ps.setLong(1, historial.getId());
+                ps.setObject(2, historial.getReservaId());
+                ps.setObject(3, historial.getUsuarioId());
+                ps.setObject(4, historial.getSalaId());
+                ps.setObject(5, textos.get(historial.getUsuarioInfo()));
+                ps.setObject(6, textos.get(historial.getSalaInfo()));
+                ps.setObject(7, textos.get(historial.getArticulosInfo()));
+                ps.setTimestamp(8, Timestamp.valueOf(historial.getFechaHoraInicio()));
+                ps.setTimestamp(9, Timestamp.valueOf(historial.getFechaHoraFin()));
+                ps.setTimestamp(10, Timestamp.valueOf(historial.getFechaCreacionHistorial()));
+            });
+            List<Object[]> articulos = new ArrayList<>();
+            for (HistorialReserva historial : lote) {
+                for (Long articuloId : historial.getArticuloIds()) {
+                    articulos.add(new Object[]{historial.getId(), articuloId});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_ARTICULO, articulos);
+            indiceTextoHistorial.indexar(lote);
+        });
+    }
+
+    // Un reintento conserva los ids ya asignados
+    private void asignarIds(List<HistorialReserva> lote) {
+        List<HistorialReserva> sinId = lote.stream().filter(historial -> historial.getId() == null).collect(Collectors.toList());
+        if (sinId.isEmpty()) {
+            return;
+        }
+        int bloques = (sinId.size() + IDS_POR_BLOQUE - 1) / IDS_POR_BLOQUE;
+        List<Long> topes = jdbcTemplate.queryForList(SIGUIENTES_BLOQUES, Long.class, bloques);
+        for (int i = 0; i < sinId.size(); i++) {
+            long tope = topes.get(i / IDS_POR_BLOQUE);
+            sinId.get(i).setId(tope - IDS_POR_BLOQUE + 1 + i % IDS_POR_BLOQUE);
+        }
+    }
+
+    private void esperarReintento() {
+        try {
+            Thread.sleep(intervaloMs);
+        } catch (InterruptedException e) {
+            // Nadie interrumpe a este hilo; si pasa, se reintenta de inmediato
+        }
+    }
+}
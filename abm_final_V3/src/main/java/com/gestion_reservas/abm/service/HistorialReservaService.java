@@ -1,27 +1,106 @@
 package com.gestion_reservas.abm.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestion_reservas.abm.dto.CambiosHistorial;
+import com.gestion_reservas.abm.dto.CoincidenciaHistorial;
+import com.gestion_reservas.abm.dto.ConteoHistorial;
+import com.gestion_reservas.abm.dto.EstadisticasHistorial;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.indice.IndiceTextoHistorial;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.HistorialReserva;
 import com.gestion_reservas.abm.model.Reserva;
 import com.gestion_reservas.abm.repository.HistorialReservaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAccessor;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class HistorialReservaService {
 
+    private static final int FILAS_POR_ENVIO = 500; // Cada cuántas líneas se empuja la salida al cliente
+    public static final int MAX_CAMBIOS_POR_PEDIDO = 1000;
+    public static final int MAX_RESULTADOS_BUSQUEDA = 100;
+    public static final int MAX_MESES_ARCHIVADOS = 12; // Meses del archivo que se descomprimen por página, como mucho
+    private static final String PREFIJO_CURSOR = "h1:";
+
+    // Orden del listado del administrador: del más reciente al más antiguo
+    private static final Comparator<HistorialReserva> ORDEN_LISTADO = Comparator
+            .comparing(HistorialReserva::getFechaCreacionHistorial, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(HistorialReserva::getId, Comparator.reverseOrder());
+
     @Autowired
     private HistorialReservaRepository historialReservaRepository;
 
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Autowired
+    private IndiceTextoHistorial indiceTextoHistorial;
+
+    @Autowired
+    private ArchivoHistorial archivoHistorial;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // El texto se arma acá, mientras las entidades siguen cargadas; la escritura queda en manos del EscritorHistorial
     public void guardarHistorial(Reserva reserva) {
+        encolarAlConfirmar(List.of(crearHistorial(reserva)));
+    }
+
+    public void guardarHistorial(List<Reserva> reservas) {
+        encolarAlConfirmar(reservas.stream().map(this::crearHistorial).collect(Collectors.toList()));
+    }
+
+    // Si la reserva se deshace, su historial no llega a escribirse
+    private void encolarAlConfirmar(List<HistorialReserva> entradas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            escritorHistorial.encolar(entradas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                escritorHistorial.encolar(entradas);
+            }
+        });
+    }
+
+    private HistorialReserva crearHistorial(Reserva reserva) {
         HistorialReserva historial = new HistorialReserva();
         historial.setReservaId(reserva.getId());
+        historial.setUsuarioId(reserva.getUsuario().getId());
+        historial.setSalaId(reserva.getSala().getId());
+        historial.setArticuloIds(reserva.getArticulos().stream().map(Articulo::getId).collect(Collectors.toSet()));
         historial.setUsuarioInfo(reserva.getUsuario().getNombre() + " " + reserva.getUsuario().getApellido() + " (" + reserva.getUsuario().getUsername() + ")");
         historial.setSalaInfo(reserva.getSala().getNombre() + " (Capacidad: " + reserva.getSala().getCapacidad() + ")");
         
@@ -33,18 +112,229 @@ public class HistorialReservaService {
         historial.setFechaHoraInicio(reserva.getFechaHoraInicio());
         historial.setFechaHoraFin(reserva.getFechaHoraFin());
         historial.setFechaCreacionHistorial(LocalDateTime.now());
-
-        historialReservaRepository.save(historial);
+        return historial;
     }
 
-    public List<HistorialReserva> findHistorial(String usuarioInfo, LocalDate fechaDesde, LocalDate fechaHasta) {
+    /**
+     * Del más reciente al más antiguo; la página sigue a la entrada (antesDeFecha, antesDeId), o es la primera si no se indica.
+     * Los meses archivados solo se consultan si el rango de fechas los alcanza, y de ellos solo se abren los
+     * segmentos de los meses del rango, hasta MAX_MESES_ARCHIVADOS contando hacia atrás desde el último; sin
+     * fechas, el listado cubre los meses que siguen en la tabla. Lo que queda afuera lo indica archivadasOmitidasAntesDe.
+     */
+    public Pagina<HistorialReserva> findHistorial(String usuarioInfo, LocalDate fechaDesde, LocalDate fechaHasta,
+                                                  LocalDateTime antesDeFecha, Long antesDeId, int tamano) {
         LocalDateTime fechaDesdeCompleta = (fechaDesde != null) ? fechaDesde.atStartOfDay() : null;
         LocalDateTime fechaHastaCompleta = (fechaHasta != null) ? fechaHasta.atTime(LocalTime.MAX) : null;
+        if (antesDeFecha == null || antesDeId == null) {
+            antesDeFecha = null;
+            antesDeId = null;
+        }
+
+        int acotado = Pagina.acotar(tamano);
+        List<String> terminos = IndiceTextoHistorial.terminos(usuarioInfo);
+        if (terminos.isEmpty() && usuarioInfo != null && !usuarioInfo.isBlank()) {
+            // Solo palabras demasiado cortas o comunes: no se pueden buscar, pero tampoco se ignora el filtro
+            return Pagina.de(List.of(), acotado);
+        }
+        List<HistorialReserva> filas = terminos.isEmpty()
+                ? historialReservaRepository.findFilteredHistorial(fechaDesdeCompleta, fechaHastaCompleta, antesDeFecha, antesDeId, Limit.of(acotado + 1))
+                : indiceTextoHistorial.filtrarPorUsuario(usuarioInfo, fechaDesdeCompleta, fechaHastaCompleta, antesDeFecha, antesDeId, acotado + 1);
+        if (fechaDesde != null || fechaHasta != null) {
+            List<HistorialReserva> archivadas = buscarArchivadas(terminos, fechaDesdeCompleta, fechaHastaCompleta, antesDeFecha, antesDeId, acotado + 1);
+            if (!archivadas.isEmpty()) {
+                filas = Stream.concat(filas.stream(), archivadas.stream()).sorted(ORDEN_LISTADO).limit(acotado + 1L).collect(Collectors.toList());
+            }
+        }
+        return Pagina.de(filas, acotado);
+    }
+
+    // Las "limite" primeras entradas archivadas (en el orden del listado) que cumplen los mismos filtros que la tabla
+    private List<HistorialReserva> buscarArchivadas(List<String> terminos, LocalDateTime fechaDesde, LocalDateTime fechaHasta,
+                                                    LocalDateTime antesDeFecha, Long antesDeId, int limite) {
+        YearMonth ultimoMes = archivoHistorial.ultimoMesArchivado();
+        if (ultimoMes == null || (fechaDesde != null && YearMonth.from(fechaDesde).isAfter(ultimoMes))) {
+            return List.of();
+        }
+        YearMonth mesHasta = ultimoMesALeer(mesDe(fechaHasta), ultimoMes);
+        YearMonth mesDesde = primerMesALeer(mesDe(fechaDesde), mesHasta);
+        HistorialReserva clave = null;
+        if (antesDeId != null) {
+            clave = new HistorialReserva();
+            clave.setFechaCreacionHistorial(antesDeFecha);
+            clave.setId(antesDeId);
+        }
+        HistorialReserva despuesDe = clave;
+        // Montículo con la peor entrada arriba: se descarta en cuanto aparece una mejor
+        PriorityQueue<HistorialReserva> mejores = new PriorityQueue<>(ORDEN_LISTADO.reversed());
+        try {
+            archivoHistorial.recorrer(mesDesde, mesHasta, entrada -> {
+                if ((fechaDesde != null && entrada.getFechaHoraInicio().isBefore(fechaDesde))
+                        || (fechaHasta != null && entrada.getFechaHoraInicio().isAfter(fechaHasta))
+                        || (despuesDe != null && ORDEN_LISTADO.compare(entrada, despuesDe) <= 0)
+                        || !IndiceTextoHistorial.coincidenTodos(terminos, entrada.getUsuarioInfo())) {
+                    return;
+                }
+                mejores.add(entrada);
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el historial archivado.", e);
+        }
+        return mejores.stream().sorted(ORDEN_LISTADO).collect(Collectors.toList());
+    }
+
+    /**
+     * Mes desde el que findHistorial muestra el archivo: las entradas archivadas anteriores que el filtro
+     * alcanzaría no aparecen en el listado. Null si no omite ninguna; sin fechas se omite todo el archivo.
+     */
+    public YearMonth archivadasOmitidasAntesDe(LocalDate fechaDesde, LocalDate fechaHasta) {
+        YearMonth primerMes = archivoHistorial.primerMesArchivado();
+        if (primerMes == null) {
+            return null;
+        }
+        YearMonth ultimoMes = archivoHistorial.ultimoMesArchivado();
+        if (fechaDesde == null && fechaHasta == null) {
+            return ultimoMes.plusMonths(1);
+        }
+        if (fechaDesde != null && YearMonth.from(fechaDesde).isAfter(ultimoMes)) {
+            return null;
+        }
+        YearMonth mesDesde = primerMesALeer(mesDe(fechaDesde), ultimoMesALeer(mesDe(fechaHasta), ultimoMes));
+        boolean pideMasViejos = fechaDesde == null || YearMonth.from(fechaDesde).isBefore(mesDesde);
+        return pideMasViejos && primerMes.isBefore(mesDesde) ? mesDesde : null;
+    }
+
+    private static YearMonth ultimoMesALeer(YearMonth hasta, YearMonth ultimoMes) {
+        return hasta != null && hasta.isBefore(ultimoMes) ? hasta : ultimoMes;
+    }
+
+    // Sin fecha de inicio (o con una muy lejana) no se abren más de MAX_MESES_ARCHIVADOS meses
+    private static YearMonth primerMesALeer(YearMonth desde, YearMonth mesHasta) {
+        YearMonth tope = mesHasta.minusMonths(MAX_MESES_ARCHIVADOS - 1L);
+        return desde != null && desde.isAfter(tope) ? desde : tope;
+    }
+
+    private static YearMonth mesDe(TemporalAccessor fecha) {
+        return fecha != null ? YearMonth.from(fecha) : null;
+    }
+
+    // Estadísticas de todo el historial: la tabla más las cantidades guardadas de cada segmento archivado
+    public EstadisticasHistorial estadisticas() {
+        EstadisticasHistorial archivadas = archivoHistorial.estadisticasArchivadas();
+        return new EstadisticasHistorial(sumar(historialReservaRepository.contarPorSala(), archivadas.salas()),
+                sumar(historialReservaRepository.contarPorUsuario(), archivadas.usuarios()),
+                sumar(historialReservaRepository.contarPorArticulo(), archivadas.articulos()));
+    }
+
+    // Mismo orden que las consultas de la tabla: de mayor a menor cantidad y, a igual cantidad, por id
+    private static List<ConteoHistorial> sumar(List<ConteoHistorial> vivos, List<ConteoHistorial> archivados) {
+        if (archivados.isEmpty()) {
+            return vivos;
+        }
+        Map<Long, ConteoHistorial> porId = new LinkedHashMap<>();
+        Stream.concat(vivos.stream(), archivados.stream()).forEach(conteo -> porId.merge(conteo.id(), conteo,
+                (a, b) -> new ConteoHistorial(a.id(), a.nombre() != null ? a.nombre() : b.nombre(), a.cantidad() + b.cantidad())));
+        return porId.values().stream()
+                .sorted(Comparator.comparingLong(ConteoHistorial::cantidad).reversed().thenComparing(ConteoHistorial::id))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Búsqueda por palabras en usuario, sala y artículos, ordenada por relevancia. Solo cubre los meses que
+     * siguen en la tabla: los archivados no tienen índice de texto y recorrerlos en cada búsqueda costaría
+     * leer todo el archivo. Para buscar en ellos está el listado del administrador con un rango de fechas.
+     */
+    public List<CoincidenciaHistorial> buscar(String consulta, int limite) {
+        return indiceTextoHistorial.buscar(consulta, Math.max(1, Math.min(limite, MAX_RESULTADOS_BUSQUEDA)));
+    }
+
+    /**
+     * Entradas escritas después del cursor (null para empezar desde el principio), de a lo sumo "limite".
+     * Los ids del historial los asigna un único escritor en orden creciente, así que "id mayor al último
+     * visto" es exactamente "lo nuevo", esté todavía en la tabla o ya en un segmento archivado (solo se
+     * abren los segmentos con ids mayores al cursor). El cursor es opaco para el cliente: codifica el
+     * último id entregado.
+     */
+    public CambiosHistorial cambiosDesde(String cursor, int limite) {
+        long ultimoId = decursorDe(cursor);
+        int acotado = Math.max(1, Math.min(limite, MAX_CAMBIOS_POR_PEDIDO));
+        List<HistorialReserva> filas = historialReservaRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(acotado + 1));
+        List<HistorialReserva> archivadas;
+        try {
+            archivadas = archivoHistorial.entradasDespuesDe(ultimoId, acotado + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el historial archivado.", e);
+        }
+        if (!archivadas.isEmpty()) {
+            filas = Stream.concat(filas.stream(), archivadas.stream())
+                    .sorted(Comparator.comparing(HistorialReserva::getId)).limit(acotado + 1L).collect(Collectors.toList());
+        }
+        boolean hayMas = filas.size() > acotado;
+        List<HistorialReserva> nuevas = hayMas ? filas.subList(0, acotado) : filas;
+        long siguienteId = nuevas.isEmpty() ? ultimoId : nuevas.get(nuevas.size() - 1).getId();
+        return new CambiosHistorial(nuevas, cursorDe(siguienteId), hayMas);
+    }
+
+    // Id más alto escrito hasta ahora, en la tabla o en el archivo
+    public long ultimoIdEscrito() {
+        Long vivo = historialReservaRepository.findMaxId();
+        return Math.max(vivo != null ? vivo : 0L, archivoHistorial.ultimoIdArchivado());
+    }
+
+    // Cursor para pedir a cambiosDesde lo escrito después de "ultimoId"
+    public static String cursorDe(long ultimoId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIJO_CURSOR + ultimoId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decursorDe(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!texto.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException("Cursor de historial inválido.");
+            }
+            return Long.parseLong(texto.substring(PREFIJO_CURSOR.length()));
+        } catch (IllegalArgumentException e) { // También cubre Base64 y NumberFormatException
+            throw new IllegalArgumentException("Cursor de historial inválido.", e);
+        }
+    }
 
-        return historialReservaRepository.findFilteredHistorial(usuarioInfo, fechaDesdeCompleta, fechaHastaCompleta);
+    /**
+     * Escribe todo el historial hasta el id "hastaId" como JSON delimitado por saltos de línea (una entrada
+     * por línea), a medida que se lee: primero los segmentos archivados y después la tabla, en orden de id.
+     * Cada entrada se desvincula del contexto de persistencia apenas se escribe, así la memoria usada no
+     * depende del tamaño de la tabla. Con cursorDe(hastaId), cambiosDesde sigue justo después de lo exportado.
+     */
+    @Transactional
+    public void exportar(OutputStream salida, long hastaId) throws IOException {
+        JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+        generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long[] escritas = {0};
+        archivoHistorial.recorrer(null, null, entrada -> {
+            if (entrada.getId() <= hastaId) {
+                escribirLinea(generador, entrada, ++escritas[0]);
+            }
+        });
+        try (Stream<HistorialReserva> historial = historialReservaRepository.streamHasta(hastaId)) {
+            Iterator<HistorialReserva> it = historial.iterator();
+            while (it.hasNext()) {
+                HistorialReserva entrada = it.next();
+                escribirLinea(generador, entrada, ++escritas[0]);
+                entityManager.detach(entrada);
+            }
+        }
+        generador.flush();
     }
 
-    public List<HistorialReserva> findAll() {
-        return historialReservaRepository.findAll();
+    private static void escribirLinea(JsonGenerator generador, HistorialReserva entrada, long numero) throws IOException {
+        generador.writeObject(entrada);
+        generador.writeRaw('\n');
+        if (numero % FILAS_POR_ENVIO == 0) {
+            generador.flush();
+        }
     }
 }
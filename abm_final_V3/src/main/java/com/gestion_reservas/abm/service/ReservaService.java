@@ -1,87 +1,362 @@
 package com.gestion_reservas.abm.service;
 
+import com.gestion_reservas.abm.dto.ArticuloDeReserva;
+import com.gestion_reservas.abm.dto.DisponibilidadDia;
+import com.gestion_reservas.abm.dto.EstadisticasDisponibilidad;
+import com.gestion_reservas.abm.dto.HorarioLibre;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.dto.ReservaResumen;
+import com.gestion_reservas.abm.dto.ResultadoReserva;
+import com.gestion_reservas.abm.dto.SolicitudReserva;
+import com.gestion_reservas.abm.indice.AgendaIntervalos;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
+import com.gestion_reservas.abm.indice.IntervaloReserva;
+import com.gestion_reservas.abm.indice.OcupacionArticulo;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ArticuloRepository;
 import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ReservaService {
 
+    // Horario de atención del formulario de reservas (franjas de 8:00 a 18:00)
+    private static final int HORA_APERTURA = 8;
+    private static final int HORA_CIERRE = 18;
+    private static final int DIAS_DE_BUSQUEDA = 60;
+    private static final int MAX_HORARIOS_SUGERIDOS = 20;
+
     @Autowired
     private ReservaRepository reservaRepository;
 
     @Autowired
     private HistorialReservaService historialReservaService;
 
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    private CoordinadorReservas coordinadorReservas;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private ArticuloRepository articuloRepository;
+
+    // Las consultas de disponibilidad no van a la base: se cuentan para ver cuánto absorbe el índice
+    private final AtomicLong consultasDisponibilidad = new AtomicLong();
+    private final AtomicLong respuestasSinCambios = new AtomicLong();
+
     public boolean isSalaDisponible(Long salaId, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
-        List<Reserva> reservasSolapadas = reservaRepository.findReservasSolapadas(salaId, fechaHoraInicio, fechaHoraFin);
-        return reservasSolapadas.isEmpty();
+        return !indiceDisponibilidad.haySolapamientoSala(salaId, fechaHoraInicio, fechaHoraFin);
+    }
+
+    // Salas con al menos esa capacidad libres en todo el rango, primero las que mejor se ajustan
+    public List<Sala> buscarSalasLibres(int capacidadMinima, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
+        if (fechaHoraInicio == null || fechaHoraFin == null || !fechaHoraFin.isAfter(fechaHoraInicio)) {
+            throw new IllegalArgumentException("El rango horario no es válido.");
+        }
+        List<Long> libres = indiceDisponibilidad.salasLibres(capacidadMinima, fechaHoraInicio, fechaHoraFin);
+        Map<Long, Sala> salas = salaRepository.findAllById(libres).stream()
+                .collect(Collectors.toMap(Sala::getId, Function.identity()));
+        return libres.stream().map(salas::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Próximos horarios libres para la sala y los artículos a partir de "desde", en franjas de hora
+     * completa dentro del horario de atención. Ante un conflicto se salta directamente al fin de lo
+     * que ocupa el horario, en lugar de probar hora por hora.
+     */
+    public List<HorarioLibre> buscarProximosHorarios(Long salaId, List<Long> articuloIds, LocalDateTime desde, Duration duracion, int cantidad) {
+        if (cantidad < 1 || cantidad > MAX_HORARIOS_SUGERIDOS) {
+            throw new IllegalArgumentException("Se pueden pedir entre 1 y " + MAX_HORARIOS_SUGERIDOS + " horarios.");
+        }
+        if (duracion.isNegative() || duracion.isZero() || duracion.compareTo(Duration.ofHours(HORA_CIERRE - HORA_APERTURA)) > 0) {
+            throw new IllegalArgumentException("La duración no es válida.");
+        }
+        List<Long> articulos = articuloIds == null ? List.of() : articuloIds;
+        LocalDateTime limite = desde.plusDays(DIAS_DE_BUSQUEDA);
+        List<HorarioLibre> libres = new ArrayList<>();
+        LocalDateTime inicio = ajustarAlHorarioDeAtencion(desde, duracion);
+        while (libres.size() < cantidad && inicio.isBefore(limite)) {
+            LocalDateTime fin = inicio.plus(duracion);
+            LocalDateTime finConflicto = indiceDisponibilidad.finDeConflictos(salaId, articulos, inicio, fin);
+            if (finConflicto == null) {
+                libres.add(new HorarioLibre(inicio, fin));
+                inicio = fin;
+            } else {
+                inicio = finConflicto;
+            }
+            inicio = ajustarAlHorarioDeAtencion(inicio, duracion);
+        }
+        return libres;
+    }
+
+    // Redondea a la hora completa siguiente y pasa al otro día si la franja no entra antes del cierre
+    private static LocalDateTime ajustarAlHorarioDeAtencion(LocalDateTime momento, Duration duracion) {
+        LocalDateTime inicio = momento.truncatedTo(ChronoUnit.HOURS);
+        if (inicio.isBefore(momento)) {
+            inicio = inicio.plusHours(1);
+        }
+        if (inicio.getHour() < HORA_APERTURA) {
+            inicio = inicio.withHour(HORA_APERTURA);
+        }
+        if (inicio.plus(duracion).isAfter(inicio.toLocalDate().atTime(HORA_CIERRE, 0))) {
+            inicio = inicio.toLocalDate().plusDays(1).atTime(HORA_APERTURA, 0);
+        }
+        return inicio;
     }
 
     private boolean areArticulosDisponibles(List<Long> articuloIds, LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
         if (articuloIds == null || articuloIds.isEmpty()) {
             return true; // No hay artículos que comprobar
         }
-        List<Long> conflictingIds = reservaRepository.findConflictingArticuloIds(articuloIds, fechaHoraInicio, fechaHoraFin);
-        return conflictingIds.isEmpty();
+        return !indiceDisponibilidad.hayArticuloOcupado(articuloIds, fechaHoraInicio, fechaHoraFin);
     }
 
+    // Horas del día con algo de la sala ocupado (no solo las de inicio), según el índice
     public List<Integer> getHorariosOcupados(Long salaId, LocalDate fecha) {
-        LocalDateTime inicioDelDia = fecha.atStartOfDay();
-        LocalDateTime finDelDia = fecha.atTime(23, 59, 59);
+        consultasDisponibilidad.incrementAndGet();
+        return indiceDisponibilidad.horasOcupadas(salaId, fecha);
+    }
 
-        List<Reserva> reservasDelDia = reservaRepository.findBySalaIdAndFechaHoraInicioBetween(salaId, inicioDelDia, finDelDia);
+    // Versiones (ETag) de las consultas de disponibilidad
+    public String versionHorariosOcupados(Long salaId, LocalDate fecha) {
+        return indiceDisponibilidad.versiones().salaDia(salaId, fecha);
+    }
+
+    public String versionArticulosOcupados(LocalDateTime fechaHoraInicio) {
+        return indiceDisponibilidad.versiones().articulosHora(fechaHoraInicio);
+    }
+
+    public String versionDisponibilidadDia(LocalDate fecha) {
+        return indiceDisponibilidad.versiones().dia(fecha);
+    }
 
-        return reservasDelDia.stream()
-            .map(reserva -> reserva.getFechaHoraInicio().getHour())
-            .collect(Collectors.toList());
+    public DisponibilidadDia getDisponibilidadDia(LocalDate fecha) {
+        consultasDisponibilidad.incrementAndGet();
+        return DisponibilidadDia.de(fecha, indiceDisponibilidad.mascarasSalasDelDia(fecha), indiceDisponibilidad.mascarasArticulosDelDia(fecha));
     }
 
     public List<Long> getOcupadosArticuloIds(LocalDateTime fechaHoraInicio, LocalDateTime fechaHoraFin) {
-        return reservaRepository.findAllArticuloIdsInReservasSolapadas(fechaHoraInicio, fechaHoraFin);
+        consultasDisponibilidad.incrementAndGet();
+        return new ArrayList<>(indiceDisponibilidad.articulosOcupados(fechaHoraInicio, fechaHoraFin));
+    }
+
+    public void registrarRespuestaSinCambios() {
+        respuestasSinCambios.incrementAndGet();
+    }
+
+    public EstadisticasDisponibilidad estadisticasDisponibilidad() {
+        return new EstadisticasDisponibilidad(consultasDisponibilidad.get(), respuestasSinCambios.get());
     }
 
     @Transactional
     public Reserva crearReserva(Reserva reserva) {
+        List<Long> articuloIds = reserva.getArticulos() == null ? List.of() : reserva.getArticulos().stream()
+                                        .map(Articulo::getId)
+                                        .collect(Collectors.toList());
+
+        // Las reservas de una misma sala (o de los mismos artículos) se serializan hasta el commit;
+        // las de recursos distintos siguen en paralelo.
+        return coordinadorReservas.ejecutar(reserva.getSala().getId(), articuloIds,
+                () -> registrarReserva(reserva, articuloIds));
+    }
+
+    private Reserva registrarReserva(Reserva reserva, List<Long> articuloIds) {
         // 1. Comprobar disponibilidad de la sala
         if (!isSalaDisponible(reserva.getSala().getId(), reserva.getFechaHoraInicio(), reserva.getFechaHoraFin())) {
             throw new IllegalStateException("La sala ya está reservada en este horario.");
         }
 
         // 2. Comprobar disponibilidad de los artículos
-        if (reserva.getArticulos() != null && !reserva.getArticulos().isEmpty()) {
-            List<Long> articuloIds = reserva.getArticulos().stream()
-                                            .map(Articulo::getId)
-                                            .collect(Collectors.toList());
-            if (!areArticulosDisponibles(articuloIds, reserva.getFechaHoraInicio(), reserva.getFechaHoraFin())) {
-                throw new IllegalStateException("Uno o más de los artículos seleccionados ya no están disponibles en este horario.");
-            }
+        if (!areArticulosDisponibles(articuloIds, reserva.getFechaHoraInicio(), reserva.getFechaHoraFin())) {
+            throw new IllegalStateException("Uno o más de los artículos seleccionados ya no están disponibles en este horario.");
         }
 
-        // 3. Guardar la reserva principal
+        // 3. Control final contra la base de datos (el índice ya descartó los conflictos conocidos)
+        if (reservaRepository.existsReservaSolapada(reserva.getSala().getId(), reserva.getFechaHoraInicio(), reserva.getFechaHoraFin())) {
+            throw new IllegalStateException("La sala ya está reservada en este horario.");
+        }
+
+        // 4. Guardar la reserva principal
         Reserva nuevaReserva = reservaRepository.save(reserva);
+        indiceDisponibilidad.registrar(nuevaReserva);
 
-        // 4. Guardar en el historial
+        // 5. Guardar en el historial
         historialReservaService.guardarHistorial(nuevaReserva);
 
         return nuevaReserva;
     }
 
-    public List<Reserva> findAll() {
-        return reservaRepository.findAll();
+    /**
+     * Alta masiva: valida todas las solicitudes contra las reservas existentes y entre sí en una sola
+     * pasada y guarda las aceptadas juntas. Devuelve un resultado por solicitud, en el mismo orden.
+     */
+    @Transactional
+    public List<ResultadoReserva> crearReservasEnLote(List<SolicitudReserva> solicitudes) {
+        Set<Long> salaIds = new HashSet<>();
+        Set<Long> articuloIds = new HashSet<>();
+        for (SolicitudReserva solicitud : solicitudes) {
+            if (solicitud.salaId() != null) {
+                salaIds.add(solicitud.salaId());
+            }
+            articuloIds.addAll(solicitud.articuloIds());
+        }
+        return coordinadorReservas.ejecutar(salaIds, articuloIds, () -> registrarLote(solicitudes, salaIds, articuloIds));
+    }
+
+    private List<ResultadoReserva> registrarLote(List<SolicitudReserva> solicitudes, Set<Long> salaIds, Set<Long> articuloIds) {
+        // 1. Resolver usuarios, salas y artículos con una consulta por tipo
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(solicitudes.stream()
+                .map(SolicitudReserva::usuarioId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Usuario::getId, Function.identity()));
+        Map<Long, Sala> salas = salaRepository.findAllById(salaIds).stream()
+                .collect(Collectors.toMap(Sala::getId, Function.identity()));
+        Map<Long, Articulo> articulos = articuloRepository.findAllById(articuloIds).stream()
+                .collect(Collectors.toMap(Articulo::getId, Function.identity()));
+
+        // 2. Cargar la ocupación existente de la ventana del lote (una consulta para salas y otra para artículos)
+        Map<Long, AgendaIntervalos> agendasSala = new HashMap<>();
+        Map<Long, AgendaIntervalos> agendasArticulo = new HashMap<>();
+        LocalDateTime desde = solicitudes.stream().map(SolicitudReserva::fechaHoraInicio).filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo).orElse(null);
+        LocalDateTime hasta = solicitudes.stream().map(SolicitudReserva::fechaHoraFin).filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo).orElse(null);
+        if (desde != null && hasta != null && desde.isBefore(hasta)) {
+            if (!salas.isEmpty()) {
+                for (IntervaloReserva intervalo : reservaRepository.findIntervalosEnRango(salas.keySet(), desde, hasta)) {
+                    agendasSala.computeIfAbsent(intervalo.salaId(), id -> new AgendaIntervalos()).agregar(intervalo);
+                }
+            }
+            if (!articulos.isEmpty()) {
+                for (OcupacionArticulo ocupacion : reservaRepository.findOcupacionArticulosEnRango(articulos.keySet(), desde, hasta)) {
+                    agendasArticulo.computeIfAbsent(ocupacion.articuloId(), id -> new AgendaIntervalos()).agregar(ocupacion.comoIntervalo(null));
+                }
+            }
+        }
+
+        // 3. Validar cada solicitud; las aceptadas ocupan su horario para las siguientes del mismo lote
+        List<ResultadoReserva> resultados = new ArrayList<>(solicitudes.size());
+        List<Reserva> aceptadas = new ArrayList<>();
+        List<Integer> indicesAceptadas = new ArrayList<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudReserva solicitud = solicitudes.get(i);
+            Usuario usuario = usuarios.get(solicitud.usuarioId());
+            Sala sala = salas.get(solicitud.salaId());
+            if (usuario == null || sala == null) {
+                resultados.add(ResultadoReserva.invalida(i, "Usuario o Sala no encontrados."));
+                continue;
+            }
+            if (solicitud.fechaHoraInicio() == null || solicitud.fechaHoraFin() == null
+                    || !solicitud.fechaHoraInicio().isBefore(solicitud.fechaHoraFin())) {
+                resultados.add(ResultadoReserva.invalida(i, "El horario de la reserva no es válido."));
+                continue;
+            }
+            if (!articulos.keySet().containsAll(solicitud.articuloIds())) {
+                resultados.add(ResultadoReserva.invalida(i, "Uno o más de los artículos seleccionados no existen."));
+                continue;
+            }
+            AgendaIntervalos agendaSala = agendasSala.computeIfAbsent(sala.getId(), id -> new AgendaIntervalos());
+            if (agendaSala.haySolapamiento(solicitud.fechaHoraInicio(), solicitud.fechaHoraFin())
+                    || indiceDisponibilidad.seriesDeSala(sala.getId()).stream()
+                            .anyMatch(regla -> regla.haySolapamiento(solicitud.fechaHoraInicio(), solicitud.fechaHoraFin()))) {
+                resultados.add(ResultadoReserva.conflicto(i, "La sala ya está reservada en este horario."));
+                continue;
+            }
+            boolean articuloOcupado = solicitud.articuloIds().stream().anyMatch(id -> {
+                AgendaIntervalos agenda = agendasArticulo.get(id);
+                return agenda != null && agenda.haySolapamiento(solicitud.fechaHoraInicio(), solicitud.fechaHoraFin());
+            }) || indiceDisponibilidad.hayArticuloOcupadoEnSeries(solicitud.articuloIds(), solicitud.fechaHoraInicio(), solicitud.fechaHoraFin());
+            if (articuloOcupado) {
+                resultados.add(ResultadoReserva.conflicto(i, "Uno o más de los artículos seleccionados ya no están disponibles en este horario."));
+                continue;
+            }
+
+            // Id provisional negativo: solo identifica el intervalo dentro del lote
+            IntervaloReserva provisional = new IntervaloReserva((long) -(i + 1), sala.getId(), solicitud.fechaHoraInicio(), solicitud.fechaHoraFin());
+            agendaSala.agregar(provisional);
+            for (Long articuloId : solicitud.articuloIds()) {
+                agendasArticulo.computeIfAbsent(articuloId, id -> new AgendaIntervalos()).agregar(provisional);
+            }
+
+            Reserva reserva = new Reserva();
+            reserva.setUsuario(usuario);
+            reserva.setSala(sala);
+            reserva.setFechaHoraInicio(solicitud.fechaHoraInicio());
+            reserva.setFechaHoraFin(solicitud.fechaHoraFin());
+            reserva.setArticulos(solicitud.articuloIds().stream().map(articulos::get).collect(Collectors.toSet()));
+            aceptadas.add(reserva);
+            indicesAceptadas.add(i);
+            resultados.add(null); // se completa después de guardar
+        }
+
+        // 4. Guardar todas las aceptadas y su historial de una vez (Hibernate agrupa los INSERT en lotes JDBC)
+        List<Reserva> guardadas = reservaRepository.saveAll(aceptadas);
+        for (int j = 0; j < guardadas.size(); j++) {
+            Reserva guardada = guardadas.get(j);
+            indiceDisponibilidad.registrar(guardada);
+            resultados.set(indicesAceptadas.get(j), ResultadoReserva.creada(indicesAceptadas.get(j), guardada.getId()));
+        }
+        if (!guardadas.isEmpty()) {
+            historialReservaService.guardarHistorial(guardadas);
+        }
+        return resultados;
+    }
+
+    // Para las vistas de listado: dos consultas por página, sin cargar entidades ni colecciones lazy.
+    // La página sigue a la reserva (despuesDeInicio, despuesDeId); sin clave, es la primera.
+    public Pagina<ReservaResumen> listarReservas(LocalDateTime despuesDeInicio, Long despuesDeId, int tamano) {
+        int acotado = Pagina.acotar(tamano);
+        Limit limite = Limit.of(acotado + 1);
+        List<ReservaResumen> filas = (despuesDeInicio == null || despuesDeId == null)
+                ? reservaRepository.findResumenes(limite)
+                : reservaRepository.findResumenesDespuesDe(despuesDeInicio, despuesDeId, limite);
+        Pagina<ReservaResumen> pagina = Pagina.de(filas, acotado);
+        List<Long> ids = pagina.elementos().stream().map(ReservaResumen::id).collect(Collectors.toList());
+        List<ArticuloDeReserva> articulos = ids.isEmpty() ? List.of() : reservaRepository.findArticulosDeReservas(ids);
+        return new Pagina<>(conArticulos(pagina.elementos(), articulos), pagina.haySiguiente());
+    }
+
+    public List<ReservaResumen> listarReservasDeUsuario(Long usuarioId) {
+        return conArticulos(reservaRepository.findResumenesByUsuarioId(usuarioId), reservaRepository.findArticulosDeReservasByUsuarioId(usuarioId));
     }
 
-    public List<Reserva> findByUsuarioId(Long usuarioId) {
-        return reservaRepository.findByUsuarioId(usuarioId);
+    private static List<ReservaResumen> conArticulos(List<ReservaResumen> filas, List<ArticuloDeReserva> articulos) {
+        Map<Long, List<String>> nombresPorReserva = articulos.stream()
+                .collect(Collectors.groupingBy(ArticuloDeReserva::reservaId,
+                        Collectors.mapping(ArticuloDeReserva::nombre, Collectors.toList())));
+        return filas.stream()
+                .map(fila -> fila.conArticulos(nombresPorReserva.getOrDefault(fila.id(), List.of())))
+                .collect(Collectors.toList());
     }
 
     public Optional<Reserva> findById(Long id) {
@@ -90,5 +365,6 @@ public class ReservaService {
 
     public void deleteById(Long id) {
         reservaRepository.deleteById(id);
+        indiceDisponibilidad.eliminar(id);
     }
 }
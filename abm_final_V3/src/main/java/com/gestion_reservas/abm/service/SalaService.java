@@ -1,10 +1,17 @@
 package com.gestion_reservas.abm.service;
 
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
 import com.gestion_reservas.abm.model.Sala;
 import com.gestion_reservas.abm.repository.SalaRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,19 +21,54 @@ public class SalaService {
     @Autowired
     private SalaRepository salaRepository;
 
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    // Los cambios de salas tienen que pasar por este servicio para que la copia en memoria se descarte
+    private final CacheCatalogo<Sala> catalogo;
+
+    public SalaService(@Value("${catalogos.cache.ttl-segundos:300}") long ttlSegundos,
+                       @Value("${catalogos.cache.max-elementos:1000}") int maxElementos) {
+        this.catalogo = new CacheCatalogo<>(() -> salaRepository.findAll(), Sala::getId, Duration.ofSeconds(ttlSegundos), maxElementos);
+    }
+
     public List<Sala> findAll() {
-        return salaRepository.findAll();
+        return catalogo.todos();
+    }
+
+    // Página de hasta "tamano" salas con id mayor a "despuesDeId" (null para la primera)
+    public Pagina<Sala> listarPagina(Long despuesDeId, int tamano) {
+        int acotado = Pagina.acotar(tamano);
+        long desde = despuesDeId != null ? despuesDeId : 0L;
+        return Pagina.de(salaRepository.findByIdGreaterThanOrderByIdAsc(desde, Limit.of(acotado + 1)), acotado);
     }
 
     public Optional<Sala> findById(Long id) {
-        return salaRepository.findById(id);
+        return catalogo.porId(id, salaRepository::findById);
+    }
+
+    public EstadisticasCache estadisticasCache() {
+        return catalogo.estadisticas();
     }
 
+    // Al editar se copian los campos del formulario sobre la sala guardada: la sala del formulario viene
+    // sin sus reservas ni sus series y, al fusionarla, orphanRemoval las borraría
+    @Transactional
     public void save(Sala sala) {
-        salaRepository.save(sala);
+        Sala guardada = sala.getId() == null ? null : salaRepository.findById(sala.getId()).orElse(null);
+        if (guardada == null) {
+            guardada = salaRepository.save(sala);
+        } else {
+            guardada.setNombre(sala.getNombre());
+            guardada.setCapacidad(sala.getCapacidad());
+        }
+        indiceDisponibilidad.registrarSala(guardada.getId(), guardada.getCapacidad());
+        catalogo.invalidar();
     }
 
     public void deleteById(Long id) {
         salaRepository.deleteById(id);
+        indiceDisponibilidad.eliminarSala(id); // Sus reservas se eliminan en cascada
+        catalogo.invalidar();
     }
 }
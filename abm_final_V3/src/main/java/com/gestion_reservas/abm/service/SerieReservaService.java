@@ -0,0 +1,124 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.indice.AgendaIntervalos;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
+import com.gestion_reservas.abm.indice.IntervaloReserva;
+import com.gestion_reservas.abm.indice.ReglaSerie;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.SerieReserva;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class SerieReservaService {
+
+    private static final int MAX_REPETICIONES = 104; // Dos años de ocurrencias semanales
+
+    @Autowired
+    private SerieReservaRepository serieReservaRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    private CoordinadorReservas coordinadorReservas;
+
+    @Transactional
+    public SerieReserva crearSerie(SerieReserva serie) {
+        if (serie.getFechaInicio() == null || serie.getHoraInicio() == null) {
+            throw new IllegalArgumentException("La serie debe indicar la fecha y la hora de inicio.");
+        }
+        if (serie.getRepeticiones() < 1 || serie.getRepeticiones() > MAX_REPETICIONES) {
+            throw new IllegalArgumentException("La serie debe tener entre 1 y " + MAX_REPETICIONES + " repeticiones.");
+        }
+        if (serie.getDuracionMinutos() <= 0) {
+            throw new IllegalArgumentException("La duración de la serie debe ser positiva.");
+        }
+        serie.setFechaFin(serie.getFechaInicio().plusWeeks(serie.getRepeticiones() - 1L));
+
+        List<Long> articuloIds = serie.getArticulos().stream().map(Articulo::getId).collect(Collectors.toList());
+        return coordinadorReservas.ejecutar(serie.getSala().getId(), articuloIds, () -> registrarSerie(serie, articuloIds));
+    }
+
+    private SerieReserva registrarSerie(SerieReserva serie, List<Long> articuloIds) {
+        List<LocalDate> conflictos = buscarConflictos(ReglaSerie.de(serie), articuloIds);
+        if (!conflictos.isEmpty()) {
+            throw new IllegalStateException("La serie se superpone con otras reservas en las fechas: "
+                    + conflictos.stream().map(LocalDate::toString).collect(Collectors.joining(", ")) + ".");
+        }
+        SerieReserva guardada = serieReservaRepository.save(serie);
+        indiceDisponibilidad.registrarSerie(ReglaSerie.de(guardada));
+        return guardada;
+    }
+
+    /**
+     * Evalúa toda la serie en una pasada: se cargan de una vez las reservas de la sala y de los
+     * artículos en el rango completo de la serie (y las series que podrían cruzarse) y después
+     * cada ocurrencia se compara en memoria.
+     */
+    List<LocalDate> buscarConflictos(ReglaSerie regla, List<Long> articuloIds) {
+        LocalDateTime desde = regla.primerInicio();
+        LocalDateTime hasta = regla.ultimoFin();
+
+        AgendaIntervalos agendaSala = new AgendaIntervalos();
+        reservaRepository.findIntervalosEnRango(List.of(regla.salaId()), desde, hasta).forEach(agendaSala::agregar);
+
+        AgendaIntervalos agendaArticulos = new AgendaIntervalos();
+        if (!articuloIds.isEmpty()) {
+            reservaRepository.findOcupacionArticulosEnRango(articuloIds, desde, hasta)
+                    .forEach(ocupacion -> agendaArticulos.agregar(ocupacion.comoIntervalo(null)));
+        }
+
+        List<ReglaSerie> otrasSeries = serieReservaRepository.findCandidatas(regla.salaId(),
+                        articuloIds.isEmpty() ? List.of(-1L) : articuloIds, desde.toLocalDate(), hasta.toLocalDate())
+                .stream()
+                .filter(otra -> !otra.getId().equals(regla.serieId()))
+                .map(ReglaSerie::de)
+                .collect(Collectors.toList());
+
+        List<LocalDate> conflictos = new ArrayList<>();
+        for (IntervaloReserva ocurrencia : regla.ocurrenciasEntre(desde, hasta)) {
+            boolean ocupada = agendaSala.haySolapamiento(ocurrencia.inicio(), ocurrencia.fin())
+                    || agendaArticulos.haySolapamiento(ocurrencia.inicio(), ocurrencia.fin())
+                    || otrasSeries.stream().anyMatch(otra ->
+                            (otra.salaId().equals(regla.salaId()) || !Collections.disjoint(otra.articuloIds(), articuloIds))
+                                    && otra.haySolapamiento(ocurrencia.inicio(), ocurrencia.fin()));
+            if (ocupada) {
+                conflictos.add(ocurrencia.inicio().toLocalDate());
+            }
+        }
+        return conflictos;
+    }
+
+    // Cancela una sola ocurrencia de la serie (queda como fecha de excepción)
+    @Transactional
+    public void excluirOcurrencia(Long serieId, LocalDate fecha) {
+        serieReservaRepository.findById(serieId).ifPresent(serie -> {
+            serie.getExcepciones().add(fecha);
+            indiceDisponibilidad.registrarSerie(ReglaSerie.de(serieReservaRepository.save(serie)));
+        });
+    }
+
+    public Optional<SerieReserva> findById(Long id) {
+        return serieReservaRepository.findById(id);
+    }
+
+    public void deleteById(Long id) {
+        serieReservaRepository.deleteById(id);
+        indiceDisponibilidad.eliminarSerie(id);
+    }
+}
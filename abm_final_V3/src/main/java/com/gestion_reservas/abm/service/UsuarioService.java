@@ -1,10 +1,19 @@
 package com.gestion_reservas.abm.service;
 
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
 import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
 import com.gestion_reservas.abm.repository.UsuarioRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +23,23 @@ public class UsuarioService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private SerieReservaRepository serieReservaRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    // Los cambios de usuarios tienen que pasar por este servicio para que la copia en memoria se descarte
+    private final CachePrincipales principales;
+
+    public UsuarioService(@Value("${sesion.principales.ttl-segundos:600}") long ttlSegundos,
+                          @Value("${sesion.principales.max-elementos:10000}") int maxElementos) {
+        this.principales = new CachePrincipales(id -> usuarioRepository.findById(id), Duration.ofSeconds(ttlSegundos), maxElementos);
+    }
+
     public boolean checkLogin(String username, String password) {
         Optional<Usuario> usuarioOptional = usuarioRepository.findByUsername(username);
         if (usuarioOptional.isPresent()) {
@@ -31,19 +57,56 @@ public class UsuarioService {
         return usuarioRepository.findById(id);
     }
 
-    public List<Usuario> findAll() {
-        return usuarioRepository.findAll();
+    // Usuario de la sesión, desde memoria (ver CachePrincipales); vacío si ya no existe
+    public Optional<Usuario> findPrincipal(Long id) {
+        return principales.obtener(id);
+    }
+
+    public EstadisticasCache estadisticasPrincipales() {
+        return principales.estadisticas();
+    }
+
+    // Página de hasta "tamano" usuarios con id mayor a "despuesDeId" (null para la primera)
+    public Pagina<Usuario> listarPagina(Long despuesDeId, int tamano) {
+        int acotado = Pagina.acotar(tamano);
+        long desde = despuesDeId != null ? despuesDeId : 0L;
+        return Pagina.de(usuarioRepository.findByIdGreaterThanOrderByIdAsc(desde, Limit.of(acotado + 1)), acotado);
     }
 
     public Usuario createUser(Usuario usuario) {
         return usuarioRepository.save(usuario);
     }
 
+    // Se copian los campos del formulario sobre el usuario guardado: el del formulario viene sin sus
+    // reservas y series (orphanRemoval las borraría) ni la fecha de nacimiento. Contraseña y rol vacíos
+    // conservan los actuales.
+    @Transactional
     public Usuario updateUser(Usuario usuario) {
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.findById(usuario.getId())
+                .orElseThrow(() -> new IllegalArgumentException("El usuario no existe: " + usuario.getId()));
+        guardado.setNombre(usuario.getNombre());
+        guardado.setApellido(usuario.getApellido());
+        guardado.setUsername(usuario.getUsername());
+        if (usuario.getPassword() != null && !usuario.getPassword().isEmpty()) {
+            guardado.setPassword(usuario.getPassword());
+        }
+        if (usuario.getRol() != null) {
+            guardado.setRol(usuario.getRol());
+        }
+        if (usuario.getFechaNacimiento() != null) {
+            guardado.setFechaNacimiento(usuario.getFechaNacimiento());
+        }
+        principales.invalidar(guardado.getId());
+        return guardado;
     }
 
     public void deleteById(Long id) {
+        // Las reservas y series del usuario se eliminan en cascada; hay que sacarlas también del índice
+        List<Long> reservaIds = reservaRepository.findIdsByUsuarioId(id);
+        List<Long> serieIds = serieReservaRepository.findIdsByUsuarioId(id);
         usuarioRepository.deleteById(id);
+        principales.invalidar(id);
+        reservaIds.forEach(indiceDisponibilidad::eliminar);
+        serieIds.forEach(indiceDisponibilidad::eliminarSerie);
     }
 }
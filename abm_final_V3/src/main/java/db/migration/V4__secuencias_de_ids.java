@@ -0,0 +1,42 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Crea las secuencias de ids (incremento 50, igual al allocationSize de las entidades) empezando
+ * después del mayor id de cada tabla. Es una migración Java porque el valor inicial depende de los
+ * datos que ya tenga la base.
+ */
+public class V4__secuencias_de_ids extends BaseJavaMigration {
+
+    private static final int INCREMENTO = 50;
+
+    private static final Map<String, String> SECUENCIAS = Map.of(
+            "usuario_seq", "usuario",
+            "sala_seq", "sala",
+            "articulo_seq", "articulo",
+            "reservas_seq", "reservas",
+            "historial_reservas_seq", "historial_reservas",
+            "series_reserva_seq", "series_reserva");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (Map.Entry<String, String> secuencia : SECUENCIAS.entrySet()) {
+                long maximo;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + secuencia.getValue())) {
+                    rs.next();
+                    maximo = rs.getLong(1);
+                }
+                // Con el optimizador "pooled", el valor leído es el tope del bloque: el primero cubre (maximo, maximo + 50]
+                statement.execute("CREATE SEQUENCE IF NOT EXISTS " + secuencia.getKey()
+                        + " START WITH " + (maximo + INCREMENTO) + " INCREMENT BY " + INCREMENTO);
+            }
+        }
+    }
+}
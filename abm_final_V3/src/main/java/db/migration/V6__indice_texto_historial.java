@@ -0,0 +1,60 @@
+package db.migration;
+
+import com.gestion_reservas.abm.indice.IndiceTextoHistorial;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Crea la tabla del índice de texto del historial (ver IndiceTextoHistorial) e indexa las entradas
+ * que ya existen, de a bloques por id. Es una migración Java porque los tokens se arman con el
+ * mismo código que usa la aplicación.
+ */
+public class V6__indice_texto_historial extends BaseJavaMigration {
+
+    private static final int BLOQUE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection conexion = context.getConnection();
+        try (Statement statement = conexion.createStatement()) {
+            statement.execute("CREATE TABLE historial_tokens ("
+                    + "token VARCHAR(" + IndiceTextoHistorial.LARGO_MAXIMO_TOKEN + ") NOT NULL, "
+                    + "campo TINYINT NOT NULL, "
+                    + "historial_id BIGINT NOT NULL, "
+                    + "PRIMARY KEY (token, campo, historial_id), "
+                    + "CONSTRAINT fk_historial_tokens_historial FOREIGN KEY (historial_id) REFERENCES historial_reservas (id))");
+        }
+
+        try (PreparedStatement lectura = conexion.prepareStatement("SELECT id, usuario_info, sala_info, articulos_info "
+                + "FROM historial_reservas WHERE id > ? ORDER BY id LIMIT " + BLOQUE);
+             PreparedStatement insercion = conexion.prepareStatement(
+                     "INSERT INTO historial_tokens (token, campo, historial_id) VALUES (?, ?, ?)")) {
+            long ultimoId = 0;
+            boolean hayMas = true;
+            while (hayMas) {
+                lectura.setLong(1, ultimoId);
+                int leidas = 0;
+                try (ResultSet rs = lectura.executeQuery()) {
+                    while (rs.next()) {
+                        ultimoId = rs.getLong("id");
+                        leidas++;
+                        for (Object[] fila : IndiceTextoHistorial.filasDeTokens(ultimoId, rs.getString("usuario_info"),
+                                rs.getString("sala_info"), rs.getString("articulos_info"))) {
+                            insercion.setString(1, (String) fila[0]);
+                            insercion.setInt(2, (Integer) fila[1]);
+                            insercion.setLong(3, (Long) fila[2]);
+                            insercion.addBatch();
+                        }
+                    }
+                }
+                insercion.executeBatch();
+                hayMas = leidas == BLOQUE;
+            }
+        }
+    }
+}
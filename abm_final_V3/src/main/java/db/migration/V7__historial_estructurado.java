@@ -0,0 +1,135 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agrega al historial los ids de usuario, sala y artículos (columnas e historial_articulos, con índices)
+ * y completa las entradas existentes:
+ * 1. Si la reserva original todavía existe, los ids se copian de ella.
+ * 2. Si no, se deducen del texto guardado: el email entre paréntesis de usuario_info, el nombre de la
+ *    sala antes de " (Capacidad" y cada nombre de artículo separado por coma. Lo que no se encuentre
+ *    en los catálogos actuales queda en NULL.
+ */
+public class V7__historial_estructurado extends BaseJavaMigration {
+
+    private static final int BLOQUE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection conexion = context.getConnection();
+        try (Statement statement = conexion.createStatement()) {
+            statement.execute("ALTER TABLE historial_reservas ADD COLUMN usuario_id BIGINT");
+            statement.execute("ALTER TABLE historial_reservas ADD COLUMN sala_id BIGINT");
+            statement.execute("CREATE TABLE historial_articulos ("
+                    + "historial_id BIGINT NOT NULL, "
+                    + "articulo_id BIGINT NOT NULL, "
+                    + "PRIMARY KEY (historial_id, articulo_id), "
+                    + "CONSTRAINT fk_historial_articulos_historial FOREIGN KEY (historial_id) REFERENCES historial_reservas (id))");
+            statement.execute("CREATE INDEX idx_historial_usuario ON historial_reservas (usuario_id)");
+            statement.execute("CREATE INDEX idx_historial_sala ON historial_reservas (sala_id)");
+            statement.execute("CREATE INDEX idx_historial_articulos_articulo ON historial_articulos (articulo_id, historial_id)");
+
+            // 1. Desde las reservas que siguen existiendo
+            statement.execute("UPDATE historial_reservas h SET "
+                    + "usuario_id = (SELECT r.usuario_id FROM reservas r WHERE r.id = h.reserva_id), "
+                    + "sala_id = (SELECT r.sala_id FROM reservas r WHERE r.id = h.reserva_id) "
+                    + "WHERE EXISTS (SELECT 1 FROM reservas r WHERE r.id = h.reserva_id)");
+            statement.execute("INSERT INTO historial_articulos (historial_id, articulo_id) "
+                    + "SELECT h.id, ra.articulo_id FROM historial_reservas h JOIN reserva_articulos ra ON ra.reserva_id = h.reserva_id");
+        }
+
+        // 2. Desde el texto, para las reservas que ya no están
+        Map<String, Long> usuarios = catalogo(conexion, "SELECT LOWER(username), id FROM usuario");
+        Map<String, Long> salas = catalogo(conexion, "SELECT nombre, id FROM sala");
+        Map<String, Long> articulos = catalogo(conexion, "SELECT nombre, id FROM articulo");
+
+        try (PreparedStatement lectura = conexion.prepareStatement("SELECT id, usuario_info, sala_info, articulos_info "
+                + "FROM historial_reservas WHERE id > ? AND usuario_id IS NULL AND sala_id IS NULL ORDER BY id LIMIT " + BLOQUE);
+             PreparedStatement actualizacion = conexion.prepareStatement(
+                     "UPDATE historial_reservas SET usuario_id = ?, sala_id = ? WHERE id = ?");
+             PreparedStatement insercion = conexion.prepareStatement(
+                     "INSERT INTO historial_articulos (historial_id, articulo_id) VALUES (?, ?)")) {
+            long ultimoId = 0;
+            boolean hayMas = true;
+            while (hayMas) {
+                lectura.setLong(1, ultimoId);
+                int leidas = 0;
+                try (ResultSet rs = lectura.executeQuery()) {
+                    while (rs.next()) {
+                        ultimoId = rs.getLong("id");
+                        leidas++;
+                        actualizacion.setObject(1, usuarios.get(emailDe(rs.getString("usuario_info"))));
+                        actualizacion.setObject(2, salas.get(salaDe(rs.getString("sala_info"))));
+                        actualizacion.setLong(3, ultimoId);
+                        actualizacion.addBatch();
+                        for (Long articuloId : articulosDe(rs.getString("articulos_info"), articulos)) {
+                            insercion.setLong(1, ultimoId);
+                            insercion.setLong(2, articuloId);
+                            insercion.addBatch();
+                        }
+                    }
+                }
+                actualizacion.executeBatch();
+                insercion.executeBatch();
+                hayMas = leidas == BLOQUE;
+            }
+        }
+    }
+
+    // Si hay nombres repetidos se queda con el id más bajo
+    private static Map<String, Long> catalogo(Connection conexion, String sql) throws Exception {
+        Map<String, Long> ids = new HashMap<>();
+        try (Statement statement = conexion.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                if (rs.getString(1) != null) {
+                    ids.merge(rs.getString(1), rs.getLong(2), Math::min);
+                }
+            }
+        }
+        return ids;
+    }
+
+    // "Nombre Apellido (email)"
+    private static String emailDe(String usuarioInfo) {
+        if (usuarioInfo == null) {
+            return null;
+        }
+        int abre = usuarioInfo.lastIndexOf('(');
+        int cierra = usuarioInfo.lastIndexOf(')');
+        return abre >= 0 && cierra > abre ? usuarioInfo.substring(abre + 1, cierra).toLowerCase() : null;
+    }
+
+    // "Nombre (Capacidad: N)"
+    private static String salaDe(String salaInfo) {
+        if (salaInfo == null) {
+            return null;
+        }
+        int corte = salaInfo.lastIndexOf(" (Capacidad:");
+        return corte >= 0 ? salaInfo.substring(0, corte) : salaInfo;
+    }
+
+    // "A, B, C" o "Ninguno"
+    private static List<Long> articulosDe(String articulosInfo, Map<String, Long> articulos) {
+        List<Long> ids = new ArrayList<>();
+        if (articulosInfo == null) {
+            return ids;
+        }
+        for (String nombre : articulosInfo.split(", ")) {
+            Long id = articulos.get(nombre.trim());
+            if (id != null && !ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,5 @@
+-- El índice de texto del historial ya no guarda palabras de menos de 3 letras ni las que aparecen en casi
+-- todas las entradas (ver IndiceTextoHistorial.PALABRAS_COMUNES): nunca se buscan y solo ocupan lugar.
+DELETE FROM historial_tokens
+WHERE CHAR_LENGTH(token) < 3
+   OR token IN ('capacidad', 'com', 'del', 'las', 'los', 'por', 'con', 'para', 'una');
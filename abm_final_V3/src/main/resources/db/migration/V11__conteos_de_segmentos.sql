@@ -0,0 +1,15 @@
+-- Cantidad de entradas por sala, usuario y artículo de cada segmento archivado: las estadísticas del
+-- historial las suman a las de la tabla sin abrir los archivos. Los segmentos ya archivados se cuentan
+-- una vez al arrancar, leyendo su archivo (ver ArchivoHistorial.completarConteos).
+CREATE TABLE historial_segmentos_conteos (
+    segmento_id BIGINT NOT NULL,
+    tipo VARCHAR(16) NOT NULL,
+    clave_id BIGINT NOT NULL,
+    cantidad BIGINT NOT NULL,
+    PRIMARY KEY (segmento_id, tipo, clave_id),
+    CONSTRAINT fk_conteos_segmento FOREIGN KEY (segmento_id) REFERENCES historial_segmentos (id)
+);
+
+CREATE INDEX idx_historial_segmentos_conteos_tipo ON historial_segmentos_conteos (tipo, clave_id);
+
+ALTER TABLE historial_segmentos ADD COLUMN con_conteos BOOLEAN DEFAULT FALSE NOT NULL;
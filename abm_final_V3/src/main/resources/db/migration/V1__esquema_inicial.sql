@@ -0,0 +1,58 @@
+-- Esquema tal como lo generaba Hibernate con ddl-auto=update. Las bases existentes se toman como
+-- versión 1 (spring.flyway.baseline-on-migrate) y solo reciben las migraciones siguientes.
+
+CREATE TABLE usuario (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    apellido VARCHAR(255),
+    fecha_nacimiento DATE,
+    nombre VARCHAR(255),
+    password VARCHAR(255),
+    rol ENUM ('ADMINISTRADOR', 'ESTANDAR'),
+    username VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE sala (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    capacidad INTEGER NOT NULL,
+    nombre VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE articulo (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    disponible BOOLEAN NOT NULL,
+    nombre VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE reservas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    fecha_hora_fin TIMESTAMP(6) NOT NULL,
+    fecha_hora_inicio TIMESTAMP(6) NOT NULL,
+    sala_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservas_sala FOREIGN KEY (sala_id) REFERENCES sala (id),
+    CONSTRAINT fk_reservas_usuario FOREIGN KEY (usuario_id) REFERENCES usuario (id)
+);
+
+CREATE TABLE reserva_articulos (
+    reserva_id BIGINT NOT NULL,
+    articulo_id BIGINT NOT NULL,
+    PRIMARY KEY (reserva_id, articulo_id),
+    CONSTRAINT fk_reserva_articulos_reserva FOREIGN KEY (reserva_id) REFERENCES reservas (id),
+    CONSTRAINT fk_reserva_articulos_articulo FOREIGN KEY (articulo_id) REFERENCES articulo (id)
+);
+
+CREATE TABLE historial_reservas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    articulos_info TEXT,
+    fecha_creacion_historial TIMESTAMP(6),
+    fecha_hora_fin TIMESTAMP(6),
+    fecha_hora_inicio TIMESTAMP(6),
+    reserva_id BIGINT,
+    sala_info TEXT,
+    usuario_info TEXT,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,30 @@
+-- Reservas semanales recurrentes. IF NOT EXISTS: en bases que ya corrieron con ddl-auto=update
+-- estas tablas pueden existir antes de la migración.
+
+CREATE TABLE IF NOT EXISTS series_reserva (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    duracion_minutos INTEGER NOT NULL,
+    fecha_fin DATE NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    hora_inicio TIME(6) NOT NULL,
+    repeticiones INTEGER NOT NULL,
+    sala_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_series_reserva_sala FOREIGN KEY (sala_id) REFERENCES sala (id),
+    CONSTRAINT fk_series_reserva_usuario FOREIGN KEY (usuario_id) REFERENCES usuario (id)
+);
+
+CREATE TABLE IF NOT EXISTS serie_articulos (
+    serie_id BIGINT NOT NULL,
+    articulo_id BIGINT NOT NULL,
+    PRIMARY KEY (serie_id, articulo_id),
+    CONSTRAINT fk_serie_articulos_serie FOREIGN KEY (serie_id) REFERENCES series_reserva (id),
+    CONSTRAINT fk_serie_articulos_articulo FOREIGN KEY (articulo_id) REFERENCES articulo (id)
+);
+
+CREATE TABLE IF NOT EXISTS serie_excepciones (
+    serie_id BIGINT NOT NULL,
+    fecha DATE,
+    CONSTRAINT fk_serie_excepciones_serie FOREIGN KEY (serie_id) REFERENCES series_reserva (id)
+);
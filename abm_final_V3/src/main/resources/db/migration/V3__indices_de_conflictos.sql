@@ -0,0 +1,15 @@
+-- Índices para las consultas de solapamiento de ReservaRepository y SerieReservaRepository.
+-- Un solapamiento con [inicio, fin) se expresa como fecha_hora_inicio < fin AND fecha_hora_fin > inicio.
+-- El índice va por fecha_hora_fin: el rango "fin > inicio" solo recorre las reservas que terminan
+-- después del momento consultado (casi siempre las futuras), mientras que "inicio < fin" recorrería
+-- todo el historial anterior. El inicio queda en el índice para filtrar sin leer la fila.
+
+-- findReservasSolapadas, existsReservaSolapada, findIntervalosEnRango
+CREATE INDEX IF NOT EXISTS idx_reservas_sala_fin_inicio ON reservas (sala_id, fecha_hora_fin, fecha_hora_inicio);
+
+-- findOcupacionArticulosEnRango: la clave primaria empieza por reserva_id; buscar por artículo necesita
+-- su propio índice, y las reservas de cada artículo se leen después por clave primaria
+CREATE INDEX IF NOT EXISTS idx_reserva_articulos_articulo ON reserva_articulos (articulo_id, reserva_id);
+
+CREATE INDEX IF NOT EXISTS idx_series_reserva_sala_fechas ON series_reserva (sala_id, fecha_fin, fecha_inicio);
+CREATE INDEX IF NOT EXISTS idx_serie_articulos_articulo ON serie_articulos (articulo_id, serie_id);
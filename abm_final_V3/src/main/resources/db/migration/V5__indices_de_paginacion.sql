@@ -0,0 +1,8 @@
+-- Índices para la paginación por clave de los listados del administrador. Cada página arranca
+-- justo después de la clave de la anterior y recorre el índice en orden, sin ordenar toda la tabla.
+
+-- Listado de reservas: ORDER BY fecha_hora_inicio, id
+CREATE INDEX IF NOT EXISTS idx_reservas_inicio_id ON reservas (fecha_hora_inicio, id);
+
+-- Historial: ORDER BY fecha_creacion_historial DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_historial_creacion_id ON historial_reservas (fecha_creacion_historial, id);
@@ -0,0 +1,18 @@
+-- Historial particionado por mes (mes de fecha_hora_inicio). Los meses recientes quedan en
+-- historial_reservas; los anteriores se pasan a segmentos de solo lectura (NDJSON comprimido con gzip,
+-- fuera de la base) y acá queda el catálogo que permite saltear los segmentos fuera del rango pedido.
+CREATE TABLE historial_segmentos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    mes DATE NOT NULL,
+    archivo VARCHAR(255) NOT NULL,
+    primer_id BIGINT NOT NULL,
+    ultimo_id BIGINT NOT NULL,
+    filas INTEGER NOT NULL,
+    fecha_archivado TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_historial_segmentos_mes ON historial_segmentos (mes);
+
+-- Filtros por fecha del listado y selección de las filas de un mes al archivarlo
+CREATE INDEX IF NOT EXISTS idx_historial_inicio_id ON historial_reservas (fecha_hora_inicio, id);
@@ -0,0 +1,29 @@
+-- Diccionario de textos del historial: cada texto distinto de usuario_info, sala_info y articulos_info
+-- se guarda una sola vez y las entradas lo referencian por id. Los textos no se borran nunca (aunque se
+-- archive el mes que los usaba), así que las referencias no necesitan clave foránea.
+CREATE TABLE historial_textos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    texto CHARACTER VARYING NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_historial_textos_texto UNIQUE (texto)
+);
+
+INSERT INTO historial_textos (texto)
+SELECT CAST(usuario_info AS CHARACTER VARYING) FROM historial_reservas WHERE usuario_info IS NOT NULL
+UNION
+SELECT CAST(sala_info AS CHARACTER VARYING) FROM historial_reservas WHERE sala_info IS NOT NULL
+UNION
+SELECT CAST(articulos_info AS CHARACTER VARYING) FROM historial_reservas WHERE articulos_info IS NOT NULL;
+
+ALTER TABLE historial_reservas ADD COLUMN usuario_texto_id BIGINT;
+ALTER TABLE historial_reservas ADD COLUMN sala_texto_id BIGINT;
+ALTER TABLE historial_reservas ADD COLUMN articulos_texto_id BIGINT;
+
+UPDATE historial_reservas h SET
+    usuario_texto_id = (SELECT t.id FROM historial_textos t WHERE t.texto = CAST(h.usuario_info AS CHARACTER VARYING)),
+    sala_texto_id = (SELECT t.id FROM historial_textos t WHERE t.texto = CAST(h.sala_info AS CHARACTER VARYING)),
+    articulos_texto_id = (SELECT t.id FROM historial_textos t WHERE t.texto = CAST(h.articulos_info AS CHARACTER VARYING));
+
+ALTER TABLE historial_reservas DROP COLUMN usuario_info;
+ALTER TABLE historial_reservas DROP COLUMN sala_info;
+ALTER TABLE historial_reservas DROP COLUMN articulos_info;
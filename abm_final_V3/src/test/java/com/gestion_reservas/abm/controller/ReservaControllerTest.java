@@ -1,5 +1,6 @@
 package com.gestion_reservas.abm.controller;
 
+import com.gestion_reservas.abm.dto.DisponibilidadDia;
 import com.gestion_reservas.abm.model.Reserva;
 import com.gestion_reservas.abm.model.Sala;
 import com.gestion_reservas.abm.model.Usuario;
@@ -13,10 +14,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.contains;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -50,8 +58,8 @@ class ReservaControllerTest {
         mockSala.setId(salaId);
 
         // Le decimos a los servicios mockeados qué deben devolver:
-        // "Cuando alguien llame a usuarioService.findById con el id 1, devuelve el usuario mock"
-        when(usuarioService.findById(userId)).thenReturn(Optional.of(mockUsuario));
+        // "Cuando alguien pida el usuario de la sesión con el id 1, devuelve el usuario mock"
+        when(usuarioService.findPrincipal(userId)).thenReturn(Optional.of(mockUsuario));
 
         // "Cuando alguien llame a salaService.findById con el id 1, devuelve la sala mock"
         when(salaService.findById(salaId)).thenReturn(Optional.of(mockSala));
@@ -71,4 +79,40 @@ class ReservaControllerTest {
                 .andExpect(redirectedUrl("/dashboard")) // Verificamos que la URL de redirección es /dashboard
                 .andExpect(flash().attribute("success", "¡Reserva creada exitosamente!")); // Verificamos el mensaje flash
     }
-}
\ No newline at end of file
+
+    @Test
+    void cuandoSePideLaDisponibilidadDelDia_debeDevolverSalasYArticulosEnUnSoloJson() throws Exception {
+        // 1. Arrange: la sala 1 está ocupada de 9 a 11 y el artículo 4 a las 9
+        LocalDate fecha = LocalDate.of(2025, 10, 20);
+        when(reservaService.getDisponibilidadDia(fecha)).thenReturn(
+                new DisponibilidadDia(fecha, Map.of(1L, List.of(9, 10)), Map.of(9, List.of(4L))));
+
+        // 2. Act & 3. Assert
+        mockMvc.perform(get("/api/reservas/disponibilidad-dia").param("fecha", "2025-10-20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fecha").value("2025-10-20"))
+                .andExpect(jsonPath("$.salas['1']").value(contains(9, 10)))
+                .andExpect(jsonPath("$.articulos['9'][0]").value(4));
+    }
+
+    @Test
+    void cuandoElClienteYaTieneLaVersion_debeResponder304SinCalcularLosHorarios() throws Exception {
+        // 1. Arrange
+        LocalDate fecha = LocalDate.of(2025, 10, 20);
+        when(reservaService.versionHorariosOcupados(1L, fecha)).thenReturn("W/\"abc-3\"");
+        when(reservaService.getHorariosOcupados(1L, fecha)).thenReturn(List.of(9, 10));
+
+        // 2. Act & 3. Assert: la primera respuesta trae la versión; la revalidación no trae cuerpo
+        mockMvc.perform(get("/api/reservas/horarios-ocupados").param("salaId", "1").param("fecha", "2025-10-20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-3\""))
+                .andExpect(jsonPath("$").value(contains(9, 10)));
+
+        mockMvc.perform(get("/api/reservas/horarios-ocupados").param("salaId", "1").param("fecha", "2025-10-20")
+                        .header("If-None-Match", "W/\"abc-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(reservaService, times(1)).getHorariosOcupados(1L, fecha);
+        verify(reservaService, times(1)).registrarRespuestaSinCambios();
+    }
+}
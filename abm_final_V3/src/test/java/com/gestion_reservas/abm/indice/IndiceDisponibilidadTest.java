@@ -0,0 +1,180 @@
+package com.gestion_reservas.abm.indice;
+
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IndiceDisponibilidadTest {
+
+    @Mock // El repositorio solo se usa para la carga inicial.
+    private ReservaRepository reservaRepository;
+
+    @Mock // Sin series recurrentes
+    private SerieReservaRepository serieReservaRepository;
+
+    @Mock
+    private SalaRepository salaRepository;
+
+    @InjectMocks
+    private IndiceDisponibilidad indice;
+
+    @BeforeEach
+    void cargarIndice() {
+        // Sala 1: una reserva larga de 8:00 a 12:00 y otra corta de 9:00 a 10:00 (datos previos solapados)
+        when(reservaRepository.findAllIntervalos()).thenReturn(List.of(
+                new IntervaloReserva(1L, 1L, LocalDateTime.of(2024, 1, 1, 8, 0), LocalDateTime.of(2024, 1, 1, 12, 0)),
+                new IntervaloReserva(2L, 1L, LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))
+        ));
+        // La reserva corta usa el proyector (artículo 7)
+        when(reservaRepository.findAllOcupacionArticulos()).thenReturn(List.of(
+                new OcupacionArticulo(7L, 2L, LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))
+        ));
+        // Capacidades: la sala 1 (10) está ocupada en la mañana; 2 (4), 3 (20) y 4 (10) están libres
+        when(salaRepository.findAllCapacidades()).thenReturn(List.of(
+                new CapacidadSala(1L, 10), new CapacidadSala(2L, 4), new CapacidadSala(3L, 20), new CapacidadSala(4L, 10)
+        ));
+        indice.cargar();
+    }
+
+    @Test
+    void cuandoUnaReservaLargaCubreElRango_debeDetectarSolapamiento() {
+        // La reserva corta más cercana termina a las 10:00, pero la larga sigue ocupando la sala
+        assertThat(indice.haySolapamientoSala(1L, LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 1, 11, 30))).isTrue();
+    }
+
+    @Test
+    void cuandoElRangoEsContiguo_noDebeHaberSolapamiento() {
+        assertThat(indice.haySolapamientoSala(1L, LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 1, 13, 0))).isFalse();
+        assertThat(indice.haySolapamientoSala(2L, LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))).isFalse();
+    }
+
+    @Test
+    void cuandoSeCancelaLaReserva_elHorarioDebeQuedarLibre() {
+        indice.eliminar(1L);
+
+        assertThat(indice.haySolapamientoSala(1L, LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 1, 12, 0))).isFalse();
+        assertThat(indice.haySolapamientoSala(1L, LocalDateTime.of(2024, 1, 1, 9, 30), LocalDateTime.of(2024, 1, 1, 10, 30))).isTrue();
+    }
+
+    @Test
+    void horasOcupadasDebeSalirDeLaMascaraDelDia() {
+        LocalDate dia = LocalDate.of(2024, 1, 1);
+        assertThat(indice.horasOcupadas(1L, dia)).containsExactly(8, 9, 10, 11);
+
+        // Al cancelar la reserva larga, la franja de las 9:00 sigue ocupada por la corta
+        indice.eliminar(1L);
+        assertThat(indice.horasOcupadas(1L, dia)).containsExactly(9);
+        assertThat(indice.horasOcupadas(1L, dia.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void cuandoElArticuloEstaEnUnaReservaSolapada_debeFigurarComoOcupado() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 9, 30);
+        LocalDateTime fin = LocalDateTime.of(2024, 1, 1, 10, 30);
+
+        assertThat(indice.hayArticuloOcupado(List.of(7L), inicio, fin)).isTrue();
+        assertThat(indice.hayArticuloOcupado(List.of(8L), inicio, fin)).isFalse();
+        assertThat(indice.articulosOcupados(inicio, fin)).containsExactly(7L);
+        assertThat(indice.articulosOcupados(fin, fin.plusHours(1))).isEmpty();
+    }
+
+    @Test
+    void cuandoSeCancelaLaReserva_elArticuloDebeQuedarLibre() {
+        indice.eliminar(2L);
+
+        assertThat(indice.hayArticuloOcupado(List.of(7L), LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))).isFalse();
+    }
+
+    @Test
+    void mascarasDelDia_debenCubrirSalasYArticulos() {
+        LocalDate dia = LocalDate.of(2024, 1, 1);
+
+        assertThat(indice.mascarasSalasDelDia(dia)).containsEntry(1L, 0b1111 << 8);
+        assertThat(indice.mascarasArticulosDelDia(dia)).containsEntry(7L, 1 << 9);
+    }
+
+    @Test
+    void salasLibres_debenFiltrarPorCapacidadYOrdenarPorMejorAjuste() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 9, 0);
+        LocalDateTime fin = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        assertThat(indice.salasLibres(5, inicio, fin)).containsExactly(4L, 3L);
+        assertThat(indice.salasLibres(5, fin.plusHours(2), fin.plusHours(3))).containsExactly(1L, 4L, 3L);
+
+        // Si la sala 4 pasa a tener 30 lugares queda al final
+        indice.registrarSala(4L, 30);
+        assertThat(indice.salasLibres(5, inicio, fin)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void cuandoSeEliminaElArticulo_noDebeQuedarEnElIndice() {
+        // Sin transacción activa el cambio se aplica en el momento
+        indice.eliminarArticulo(7L);
+
+        assertThat(indice.articulosOcupados(LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))).isEmpty();
+        // La reserva en sí sigue ocupando la sala
+        assertThat(indice.haySolapamientoSala(1L, LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0))).isTrue();
+    }
+
+    @Test
+    void serieConArticulo_debeOcuparElArticuloDesdeCualquierSala() {
+        // Serie semanal de la sala 3 con el artículo 8, los lunes de 14:00 a 15:00 durante 4 semanas
+        LocalDateTime primerInicio = LocalDateTime.of(2024, 1, 1, 14, 0);
+        indice.registrarSerie(new ReglaSerie(50L, 3L, Set.of(8L), primerInicio, Duration.ofHours(1), 4, Set.of()));
+        LocalDateTime segundaSemana = primerInicio.plusWeeks(1);
+
+        // Desde otra sala, el artículo de la serie está ocupado; la sala no
+        assertThat(indice.finDeConflictos(2L, List.of(8L), segundaSemana, segundaSemana.plusHours(1))).isEqualTo(segundaSemana.plusHours(1));
+        assertThat(indice.finDeConflictos(2L, List.of(7L), segundaSemana, segundaSemana.plusHours(1))).isNull();
+        assertThat(indice.articulosOcupadosEnSeries(List.of(7L, 8L), segundaSemana, segundaSemana.plusHours(1))).containsExactly(8L);
+        assertThat(indice.articulosOcupados(segundaSemana, segundaSemana.plusHours(1))).containsExactly(8L);
+        assertThat(indice.mascarasArticulosDelDia(segundaSemana.toLocalDate())).containsEntry(8L, 1 << 14);
+
+        // Sin el artículo, la serie sigue ocupando su sala pero ya no el artículo
+        indice.eliminarArticulo(8L);
+        assertThat(indice.hayArticuloOcupado(List.of(8L), segundaSemana, segundaSemana.plusHours(1))).isFalse();
+        assertThat(indice.haySolapamientoSala(3L, segundaSemana, segundaSemana.plusHours(1))).isTrue();
+
+        indice.eliminarSerie(50L);
+        assertThat(indice.haySolapamientoSala(3L, segundaSemana, segundaSemana.plusHours(1))).isFalse();
+    }
+
+    @Test
+    void cuandoCambiaUnaFranja_soloDebeCambiarLaVersionDeEsaFranja() {
+        VersionesDisponibilidad versiones = indice.versiones();
+        LocalDate dia = LocalDate.of(2024, 1, 1);
+        String sala1 = versiones.salaDia(1L, dia);
+        String sala1Manana = versiones.salaDia(1L, dia.plusDays(1));
+        String nueve = versiones.articulosHora(dia.atTime(9, 0));
+        String diaCompleto = versiones.dia(dia);
+
+        // Cancelar la reserva corta (sala 1, 9:00 a 10:00, con el proyector)
+        indice.eliminar(2L);
+
+        assertThat(versiones.salaDia(1L, dia)).isNotEqualTo(sala1);
+        assertThat(versiones.articulosHora(dia.atTime(9, 0))).isNotEqualTo(nueve);
+        assertThat(versiones.dia(dia)).isNotEqualTo(diaCompleto);
+        assertThat(versiones.salaDia(1L, dia.plusDays(1))).isEqualTo(sala1Manana);
+
+        // La baja de un artículo cambia los artículos de todas las franjas
+        String quince = versiones.articulosHora(dia.atTime(15, 0));
+        indice.eliminarArticulo(7L);
+        assertThat(versiones.articulosHora(dia.atTime(15, 0))).isNotEqualTo(quince);
+    }
+}
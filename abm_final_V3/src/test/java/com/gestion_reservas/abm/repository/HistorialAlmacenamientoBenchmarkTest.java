@@ -0,0 +1,129 @@
+package com.gestion_reservas.abm.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga 200.000 entradas de historial sintéticas con el esquema anterior al diccionario (V8, los textos
+ * repetidos en cada fila), migra a V9 y compara el tamaño del archivo H2 compactado y el tiempo de leer
+ * todo el historial con sus textos. Se ejecuta solo a pedido:
+ * mvn test -Dtest=HistorialAlmacenamientoBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HistorialAlmacenamientoBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialAlmacenamientoBenchmarkTest.class);
+
+    private static final int ENTRADAS = 200_000;
+    private static final int USUARIOS = 500;
+    private static final int SALAS = 20;
+    private static final int COMBINACIONES_DE_ARTICULOS = 60;
+
+    private static final String COLUMNAS_SIN_DICCIONARIO = "h.id, h.reserva_id, h.usuario_id, h.sala_id, h.usuario_info, "
+            + "h.sala_info, h.articulos_info, h.fecha_hora_inicio, h.fecha_hora_fin, h.fecha_creacion_historial";
+
+    @Test
+    void diccionario_debeAchicarElArchivoDeLaBase() throws Exception {
+        // 1. Arrange: base en el esquema V8 con el historial cargado
+        Path directorio = Paths.get("target", "benchmark-almacenamiento");
+        FileSystemUtils.deleteRecursively(directorio);
+        Files.createDirectories(directorio);
+        String url = "jdbc:h2:file:" + directorio.toAbsolutePath().resolve("base");
+        Flyway.configure().dataSource(url, "sa", "").target("8").load().migrate();
+        cargarHistorial(url);
+        compactar(url);
+        long bytesAntes = Files.size(directorio.resolve("base.mv.db"));
+        long recorridoAntes = recorrer(url, "SELECT " + COLUMNAS_SIN_DICCIONARIO + " FROM historial_reservas h");
+
+        // 2. Act
+        Flyway.configure().dataSource(url, "sa", "").load().migrate();
+        compactar(url);
+        long bytesDespues = Files.size(directorio.resolve("base.mv.db"));
+        long recorridoDespues = recorrer(url, "SELECT " + FilasHistorial.COLUMNAS + " FROM historial_reservas h");
+
+        log.info("Historial de {} entradas: {} MB con textos por fila, {} MB con diccionario ({}% menos); "
+                        + "recorrido completo {} ms -> {} ms",
+                ENTRADAS, String.format("%.1f", bytesAntes / 1e6), String.format("%.1f", bytesDespues / 1e6),
+                100 * (bytesAntes - bytesDespues) / bytesAntes, recorridoAntes, recorridoDespues);
+
+        // 3. Assert
+        assertThat(bytesDespues).isLessThan(bytesAntes);
+    }
+
+    private void cargarHistorial(String url) throws Exception {
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement insercion = conexion.prepareStatement("INSERT INTO historial_reservas (id, reserva_id, usuario_id, "
+                     + "sala_id, usuario_info, sala_info, articulos_info, fecha_hora_inicio, fecha_hora_fin, fecha_creacion_historial) "
+                     + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            conexion.setAutoCommit(false);
+            LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 8, 0);
+            for (int i = 1; i <= ENTRADAS; i++) {
+                int usuario = i % USUARIOS;
+                int sala = i % SALAS;
+                int combinacion = i % COMBINACIONES_DE_ARTICULOS;
+                insercion.setLong(1, i);
+                insercion.setLong(2, i);
+                insercion.setLong(3, usuario);
+                insercion.setLong(4, sala);
+                insercion.setString(5, "Nombre" + usuario + " Apellido" + usuario + " (usuario" + usuario + "@empresa.com)");
+                insercion.setString(6, "Sala de Conferencias " + sala + " (Capacidad: " + (4 + sala) + ")");
+                insercion.setString(7, combinacion == 0 ? "Ninguno"
+                        : "Proyector " + combinacion % 7 + ", Pizarra Blanca " + combinacion % 5 + ", Parlante " + combinacion);
+                insercion.setTimestamp(8, Timestamp.valueOf(inicio.plusHours(i)));
+                insercion.setTimestamp(9, Timestamp.valueOf(inicio.plusHours(i + 1)));
+                insercion.setTimestamp(10, Timestamp.valueOf(inicio.plusHours(i).minusDays(2)));
+                insercion.addBatch();
+                if (i % 1000 == 0) {
+                    insercion.executeBatch();
+                    conexion.commit();
+                }
+            }
+            insercion.executeBatch();
+            conexion.commit();
+        }
+    }
+
+    // Reescribe el archivo sin el espacio libre, para comparar tamaños reales
+    private void compactar(String url) throws Exception {
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "");
+             Statement statement = conexion.createStatement()) {
+            statement.execute("SHUTDOWN COMPACT");
+        }
+    }
+
+    private long recorrer(String url, String sql) throws Exception {
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "");
+             Statement statement = conexion.createStatement()) {
+            long comienzo = System.nanoTime();
+            int filas = 0;
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    rs.getString("usuario_info");
+                    rs.getString("sala_info");
+                    rs.getString("articulos_info");
+                    filas++;
+                }
+            }
+            assertThat(filas).isEqualTo(ENTRADAS);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - comienzo);
+        }
+    }
+}
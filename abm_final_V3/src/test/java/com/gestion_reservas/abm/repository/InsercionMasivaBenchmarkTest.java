@@ -0,0 +1,113 @@
+package com.gestion_reservas.abm.repository;
+
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserta 100.000 reservas con dos artículos cada una, primero fila por fila (lo que hacía IDENTITY)
+ * y después en lotes JDBC de 50 (lo que permiten las secuencias). Se ejecuta solo a pedido:
+ * mvn test -Dtest=InsercionMasivaBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InsercionMasivaBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsercionMasivaBenchmarkTest.class);
+
+    private static final int RESERVAS = 100_000;
+    private static final int POR_TRANSACCION = 1_000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void insertarEnLotes_debeSerMasRapidoQueFilaPorFila() {
+        // 1. Arrange
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Long[] ids = transactionTemplate.execute(status -> {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("benchmark@test.com");
+            entityManager.persist(usuario);
+            Sala sala = new Sala();
+            sala.setNombre("Sala Benchmark");
+            entityManager.persist(sala);
+            Articulo proyector = new Articulo();
+            proyector.setNombre("Proyector Benchmark");
+            entityManager.persist(proyector);
+            Articulo parlante = new Articulo();
+            parlante.setNombre("Parlante Benchmark");
+            entityManager.persist(parlante);
+            return new Long[]{usuario.getId(), sala.getId(), proyector.getId(), parlante.getId()};
+        });
+
+        // 2. Act: la misma carga con lotes de 1 (un viaje por fila) y de 50
+        estadisticas.clear();
+        long filaPorFila = insertar(ids, LocalDateTime.of(2040, 1, 1, 0, 0), 1);
+        long sentenciasFilaPorFila = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        long enLotes = insertar(ids, LocalDateTime.of(2060, 1, 1, 0, 0), 50);
+        long sentenciasEnLotes = estadisticas.getPrepareStatementCount();
+
+        log.info("Inserción de {} reservas con 2 artículos: fila por fila {} ms, en lotes de 50 {} ms (x{})",
+                RESERVAS, filaPorFila, enLotes, String.format("%.1f", (double) filaPorFila / Math.max(1, enLotes)));
+
+        // 3. Assert
+        assertThat(sentenciasEnLotes).isLessThan(sentenciasFilaPorFila);
+        assertThat(enLotes).isLessThan(filaPorFila);
+    }
+
+    private long insertar(Long[] ids, LocalDateTime desde, int tamanoLote) {
+        long comienzo = System.nanoTime();
+        for (int inicio = 0; inicio < RESERVAS; inicio += POR_TRANSACCION) {
+            int primera = inicio;
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+                Usuario usuario = entityManager.getReference(Usuario.class, ids[0]);
+                Sala sala = entityManager.getReference(Sala.class, ids[1]);
+                Set<Articulo> articulos = Set.of(entityManager.getReference(Articulo.class, ids[2]),
+                        entityManager.getReference(Articulo.class, ids[3]));
+                for (int i = primera; i < primera + POR_TRANSACCION; i++) {
+                    Reserva reserva = new Reserva();
+                    reserva.setUsuario(usuario);
+                    reserva.setSala(sala);
+                    reserva.setArticulos(articulos);
+                    reserva.setFechaHoraInicio(desde.plusHours(i));
+                    reserva.setFechaHoraFin(desde.plusHours(i + 1));
+                    entityManager.persist(reserva);
+                }
+            });
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - comienzo);
+    }
+}
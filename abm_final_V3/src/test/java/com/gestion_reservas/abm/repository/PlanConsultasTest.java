@@ -0,0 +1,85 @@
+package com.gestion_reservas.abm.repository;
+
+import com.gestion_reservas.abm.config.CacheSegundoNivelConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Comprueba con EXPLAIN que las consultas de ReservaRepository usan los índices de V3__indices_de_conflictos.sql
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.gestion_reservas.abm.repository.RegistroSql"
+})
+@Import(CacheSegundoNivelConfig.class) // Los tests de JPA no cargan las configuraciones de la aplicación
+class PlanConsultasTest {
+
+    private static final int SALAS = 200;
+    private static final int ARTICULOS = 100;
+    private static final int RESERVAS = 50_000;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private long primeraSala;
+    private long primerArticulo;
+
+    @BeforeEach
+    void sembrarBaseGrande() {
+        // Una reserva por hora repartida entre todas las salas, cada una con un artículo
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO usuario (username) VALUES ('plan@test.com')");
+        jdbcTemplate.update("INSERT INTO sala (nombre, capacidad) SELECT 'Sala ' || x, 10 FROM SYSTEM_RANGE(1, " + SALAS + ")");
+        jdbcTemplate.update("INSERT INTO articulo (nombre, disponible) SELECT 'Artículo ' || x, TRUE FROM SYSTEM_RANGE(1, " + ARTICULOS + ")");
+        primeraSala = jdbcTemplate.queryForObject("SELECT MIN(id) FROM sala", Long.class);
+        primerArticulo = jdbcTemplate.queryForObject("SELECT MIN(id) FROM articulo", Long.class);
+        jdbcTemplate.update("INSERT INTO reservas (sala_id, usuario_id, fecha_hora_inicio, fecha_hora_fin) "
+                + "SELECT " + primeraSala + " + MOD(x, " + SALAS + "), (SELECT MIN(id) FROM usuario), "
+                + "DATEADD('HOUR', x, TIMESTAMP '2020-01-01 00:00:00'), DATEADD('HOUR', x + 1, TIMESTAMP '2020-01-01 00:00:00') "
+                + "FROM SYSTEM_RANGE(1, " + RESERVAS + ")");
+        jdbcTemplate.update("INSERT INTO reserva_articulos (reserva_id, articulo_id) "
+                + "SELECT id, " + primerArticulo + " + MOD(id, " + ARTICULOS + ") FROM reservas");
+        jdbcTemplate.execute("ANALYZE");
+        RegistroSql.SENTENCIAS.clear();
+    }
+
+    @Test
+    void consultasDeSolapamiento_debenUsarLosIndicesCompuestos() {
+        // 1. Arrange: una ventana hacia el final de los datos, como una consulta de disponibilidad real
+        LocalDateTime inicio = LocalDateTime.of(2025, 9, 1, 10, 0);
+        LocalDateTime fin = inicio.plusHours(2);
+        Long sala = primeraSala + 7;
+        List<Long> articulos = List.of(primerArticulo + 3, primerArticulo + 4);
+
+        // 2. Act & 3. Assert: el SQL que generó Hibernate para cada método, con sus mismos parámetros
+        reservaRepository.findReservasSolapadas(sala, inicio, fin);
+        assertThat(explicar(sala, fin, inicio)).contains("IDX_RESERVAS_SALA_FIN_INICIO").doesNotContain("tableScan");
+
+        reservaRepository.existsReservaSolapada(sala, inicio, fin);
+        assertThat(explicar(sala, fin, inicio)).contains("IDX_RESERVAS_SALA_FIN_INICIO").doesNotContain("tableScan");
+
+        reservaRepository.findIntervalosEnRango(List.of(sala), inicio, fin);
+        assertThat(explicar(sala, fin, inicio)).contains("IDX_RESERVAS_SALA_FIN_INICIO").doesNotContain("tableScan");
+
+        // Altas masivas y series: primero los artículos pedidos y después sus reservas por clave primaria
+        reservaRepository.findOcupacionArticulosEnRango(articulos, inicio, fin);
+        assertThat(explicar(articulos.get(0), articulos.get(1), fin, inicio)).contains("IDX_RESERVA_ARTICULOS_ARTICULO").doesNotContain("tableScan");
+    }
+
+    private String explicar(Object... parametros) {
+        String sql = RegistroSql.SENTENCIAS.get(RegistroSql.SENTENCIAS.size() - 1);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parametros));
+    }
+}
@@ -0,0 +1,20 @@
+package com.gestion_reservas.abm.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Guarda el SQL que genera Hibernate, para pasarlo por EXPLAIN tal cual o para contar sentencias.
+// Se activa con spring.jpa.properties.hibernate.session_factory.statement_inspector.
+public class RegistroSql implements StatementInspector {
+
+    public static final List<String> SENTENCIAS = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+        SENTENCIAS.add(sql);
+        return sql;
+    }
+}
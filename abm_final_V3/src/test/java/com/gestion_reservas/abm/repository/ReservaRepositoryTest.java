@@ -1,5 +1,6 @@
 package com.gestion_reservas.abm.repository;
 
+import com.gestion_reservas.abm.config.CacheSegundoNivelConfig;
 import com.gestion_reservas.abm.model.Reserva;
 import com.gestion_reservas.abm.model.Sala;
 import com.gestion_reservas.abm.model.Usuario;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,6 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 // ANOTACIÓN CORREGIDA:
 @DataJpaTest(properties = "spring.sql.init.mode=never") // Deshabilita la ejecución de data.sql
+@Import(CacheSegundoNivelConfig.class) // Los tests de JPA no cargan las configuraciones de la aplicación
 class ReservaRepositoryTest {
 
     @Autowired
@@ -0,0 +1,185 @@
+package com.gestion_reservas.abm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestion_reservas.abm.dto.CambiosHistorial;
+import com.gestion_reservas.abm.dto.ConteoHistorial;
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Base propia: la prueba archiva todo lo anterior a 2021
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archivo;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never",
+        "historial.archivo.directorio=target/historial-archivo-test",
+        "historial.archivo.cron=-"
+})
+class ArchivoHistorialTest {
+
+    @Autowired
+    private ArchivoHistorial archivoHistorial;
+
+    @Autowired
+    private HistorialReservaService historialReservaService;
+
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cuandoSeArchivanLosMesesViejos_findHistorialDebeLeerlosSoloSiElRangoLosIncluye() throws Exception {
+        // 1. Arrange: enero y febrero de 2020 (a archivar) y un mes reciente que queda en la tabla
+        escribirHistorial(1_000L, 30, LocalDateTime.of(2020, 1, 10, 9, 0), "Ana Enero (ana@test.com)");
+        escribirHistorial(2_000L, 20, LocalDateTime.of(2020, 2, 10, 9, 0), "Beto Febrero (beto@test.com)");
+        escribirHistorial(3_000L, 10, LocalDateTime.of(2099, 5, 10, 9, 0), "Ana Reciente (ana@test.com)");
+
+        // 2. Act
+        int archivadas = archivoHistorial.archivarAnterioresA(YearMonth.of(2021, 1));
+
+        // 3. Assert: los meses viejos salen de la tabla, con sus artículos y tokens
+        assertThat(archivadas).isEqualTo(50);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_reservas", Long.class)).isEqualTo(10L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_segmentos WHERE YEAR(mes) = 2020", Long.class)).isEqualTo(2L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_articulos", Long.class)).isEqualTo(10L);
+        assertThat(archivoHistorial.ultimoMesArchivado()).isEqualTo(YearMonth.of(2020, 2));
+
+        // Sin fechas: solo los meses vivos
+        assertThat(historialReservaService.findHistorial(null, null, null, null, null, 100).elementos())
+                .extracting(HistorialReserva::getReservaId).allMatch(id -> id >= 3_000L);
+
+        // Enero de 2020: solo se abre ese segmento; se pagina igual que la tabla
+        LocalDate desde = LocalDate.of(2020, 1, 1);
+        LocalDate hasta = LocalDate.of(2020, 1, 31);
+        List<HistorialReserva> enero = new ArrayList<>();
+        Pagina<HistorialReserva> pagina = historialReservaService.findHistorial(null, desde, hasta, null, null, 12);
+        enero.addAll(pagina.elementos());
+        while (pagina.haySiguiente()) {
+            HistorialReserva ultimo = pagina.ultimo();
+            pagina = historialReservaService.findHistorial(null, desde, hasta, ultimo.getFechaCreacionHistorial(), ultimo.getId(), 12);
+            enero.addAll(pagina.elementos());
+        }
+        assertThat(enero).hasSize(30).extracting(HistorialReserva::getReservaId).allMatch(id -> id >= 1_000L && id < 1_030L);
+        assertThat(enero).extracting(HistorialReserva::getId).doesNotHaveDuplicates();
+        assertThat(enero.get(0).getArticuloIds()).isEqualTo(Set.of(7L));
+
+        // Filtro por usuario sobre el archivo y la tabla a la vez
+        assertThat(historialReservaService.findHistorial("ana", LocalDate.of(2020, 1, 1), LocalDate.of(2099, 12, 31), null, null, 100).elementos())
+                .hasSize(40).extracting(HistorialReserva::getUsuarioInfo).allMatch(info -> info.startsWith("Ana"));
+    }
+
+    @Test
+    void exportar_debeIncluirLasEntradasArchivadas() throws Exception {
+        // 1. Arrange
+        escribirHistorial(5_000L, 5, LocalDateTime.of(2019, 3, 1, 9, 0), "Carla Export (carla@test.com)");
+        archivoHistorial.archivarAnterioresA(YearMonth.of(2021, 1));
+
+        // 2. Act
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        historialReservaService.exportar(salida, historialReservaService.ultimoIdEscrito());
+
+        // 3. Assert
+        List<Long> reservas = new ArrayList<>();
+        for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+            reservas.add(objectMapper.readTree(linea).get("reservaId").asLong());
+        }
+        assertThat(reservas).contains(5_000L, 5_001L, 5_002L, 5_003L, 5_004L);
+    }
+
+    @Test
+    void estadisticasYCambios_debenIncluirLosMesesArchivados() throws Exception {
+        // 1. Arrange: cuatro entradas de 2018 con el artículo 7, todavía en la tabla
+        escribirHistorial(6_000L, 4, LocalDateTime.of(2018, 6, 1, 9, 0), "Dario Viejo (dario@test.com)");
+        long antesDeLasNuevas = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM historial_reservas WHERE reserva_id BETWEEN 6000 AND 6003", Long.class) - 1;
+        long proyectorAntes = cantidadDelArticulo7();
+
+        // 2. Act: se archivan antes de que un cliente del feed llegue a leerlas
+        archivoHistorial.archivarAnterioresA(YearMonth.of(2021, 1));
+        CambiosHistorial cambios = historialReservaService.cambiosDesde(HistorialReservaService.cursorDe(antesDeLasNuevas), 1000);
+
+        // 3. Assert: las estadísticas no cambian y el feed las entrega igual
+        assertThat(cantidadDelArticulo7()).isEqualTo(proyectorAntes);
+        assertThat(cambios.historial()).extracting(HistorialReserva::getReservaId).contains(6_000L, 6_001L, 6_002L, 6_003L);
+        assertThat(cambios.historial()).extracting(HistorialReserva::getId).isSorted();
+
+        // Un segmento archivado antes de que existieran las cantidades se cuenta leyendo su archivo
+        jdbcTemplate.update("DELETE FROM historial_segmentos_conteos");
+        jdbcTemplate.update("UPDATE historial_segmentos SET con_conteos = FALSE");
+        archivoHistorial.completarConteos();
+        assertThat(cantidadDelArticulo7()).isEqualTo(proyectorAntes);
+
+        // Si falta el archivo de un segmento, se saltea en lugar de fallar
+        String archivo = jdbcTemplate.queryForObject("SELECT archivo FROM historial_segmentos WHERE mes = DATE '2018-06-01'", String.class);
+        Files.delete(Path.of("target/historial-archivo-test", archivo));
+        assertThat(historialReservaService.findHistorial(null, LocalDate.of(2018, 6, 1), LocalDate.of(2018, 6, 30), null, null, 10).elementos())
+                .isEmpty();
+    }
+
+    @Test
+    void cuandoSoloHayFechaHasta_findHistorialDebeLeerComoMuchoDoceMesesDelArchivo() throws Exception {
+        // 1. Arrange: tres meses archivados; enero de 2010 queda a más de doce meses de enero de 2015
+        escribirHistorial(7_000L, 3, LocalDateTime.of(2010, 1, 10, 9, 0), "Elena Vieja (elena@test.com)");
+        escribirHistorial(7_100L, 3, LocalDateTime.of(2014, 6, 10, 9, 0), "Elena Media (elena@test.com)");
+        escribirHistorial(7_200L, 3, LocalDateTime.of(2015, 1, 10, 9, 0), "Elena Nueva (elena@test.com)");
+        archivoHistorial.archivarAnterioresA(YearMonth.of(2021, 1));
+        LocalDate hasta = LocalDate.of(2015, 1, 31);
+
+        // 2. Act
+        List<HistorialReserva> hastaEnero = historialReservaService.findHistorial(null, null, hasta, null, null, 100).elementos();
+
+        // 3. Assert: el segmento de 2010 no se abre y el listado indica desde qué mes muestra el archivo
+        assertThat(hastaEnero).extracting(HistorialReserva::getReservaId)
+                .contains(7_100L, 7_102L, 7_200L, 7_202L).noneMatch(id -> id >= 7_000L && id < 7_100L);
+        assertThat(historialReservaService.archivadasOmitidasAntesDe(null, hasta)).isEqualTo(YearMonth.of(2014, 2));
+
+        // Con un rango que empieza antes, el mes viejo aparece y no se omite nada
+        LocalDate desde = LocalDate.of(2010, 1, 1);
+        assertThat(historialReservaService.findHistorial(null, desde, LocalDate.of(2010, 1, 31), null, null, 100).elementos())
+                .extracting(HistorialReserva::getReservaId).containsExactlyInAnyOrder(7_000L, 7_001L, 7_002L);
+        assertThat(historialReservaService.archivadasOmitidasAntesDe(desde, LocalDate.of(2010, 1, 31))).isNull();
+    }
+
+    private long cantidadDelArticulo7() {
+        return historialReservaService.estadisticas().articulos().stream()
+                .filter(conteo -> conteo.id().equals(7L)).mapToLong(ConteoHistorial::cantidad).sum();
+    }
+
+    private void escribirHistorial(long primeraReserva, int cantidad, LocalDateTime inicio, String usuarioInfo) throws InterruptedException {
+        List<HistorialReserva> entradas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            HistorialReserva entrada = new HistorialReserva();
+            entrada.setReservaId(primeraReserva + i);
+            entrada.setUsuarioInfo(usuarioInfo);
+            entrada.setSalaInfo("Sala Archivo (Capacidad: 8)");
+            entrada.setArticulosInfo("Proyector");
+            entrada.setArticuloIds(Set.of(7L));
+            entrada.setFechaHoraInicio(inicio.plusHours(i));
+            entrada.setFechaHoraFin(inicio.plusHours(i + 1));
+            entrada.setFechaCreacionHistorial(LocalDateTime.now());
+            entradas.add(entrada);
+        }
+        escritorHistorial.encolar(entradas);
+        escritorHistorial.esperarVaciado();
+    }
+}
@@ -0,0 +1,115 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Rol;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class CachePrincipalesTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private SalaService salaService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void cuandoElUsuarioEditaSuPerfil_laSiguienteLecturaDebeVerElCambio() {
+        // 1. Arrange: el usuario de la sesión ya leído una vez
+        Usuario usuario = crearUsuario("principal@test.com");
+        usuarioService.findPrincipal(usuario.getId());
+        EstadisticasCache antes = usuarioService.estadisticasPrincipales();
+
+        // 2. Act: pedidos siguientes de la misma sesión y luego una edición del perfil
+        for (int i = 0; i < 5; i++) {
+            usuarioService.findPrincipal(usuario.getId());
+        }
+        EstadisticasCache despues = usuarioService.estadisticasPrincipales();
+
+        Usuario cambios = new Usuario();
+        cambios.setId(usuario.getId());
+        cambios.setNombre("Principal Editado");
+        cambios.setApellido("Test");
+        cambios.setUsername("principal.editado@test.com");
+        usuarioService.updateUser(cambios);
+
+        // 3. Assert: las lecturas repetidas no fueron a la base; la edición se ve y no trae la contraseña
+        assertThat(despues.aciertos() - antes.aciertos()).isEqualTo(5);
+        assertThat(despues.fallos()).isEqualTo(antes.fallos());
+        Usuario principal = usuarioService.findPrincipal(usuario.getId()).orElseThrow();
+        assertThat(principal.getNombre()).isEqualTo("Principal Editado");
+        assertThat(principal.getUsername()).isEqualTo("principal.editado@test.com");
+        assertThat(principal.getPassword()).isNull();
+        assertThat(usuarioService.checkLogin("principal.editado@test.com", "clave")).isTrue();
+
+        usuarioService.deleteById(usuario.getId());
+        assertThat(usuarioService.findPrincipal(usuario.getId())).isEmpty();
+    }
+
+    @Test
+    void cuandoElAdminEditaUnUsuario_debenConservarseSusReservasYDatosNoEditados() {
+        // 1. Arrange: un usuario con una reserva
+        Usuario usuario = crearUsuario("formulario@test.com");
+        Sala sala = new Sala();
+        sala.setNombre("Sala Principales");
+        sala.setCapacidad(4);
+        salaService.save(sala);
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuarioService.findPrincipal(usuario.getId()).orElseThrow());
+        reserva.setSala(salaService.findById(sala.getId()).orElseThrow());
+        reserva.setFechaHoraInicio(LocalDateTime.of(2036, 3, 1, 10, 0));
+        reserva.setFechaHoraFin(LocalDateTime.of(2036, 3, 1, 11, 0));
+        Reserva creada = reservaService.crearReserva(reserva);
+
+        // 2. Act: el formulario de administración envía solo id, nombre, apellido, correo y rol
+        Usuario formulario = new Usuario();
+        formulario.setId(usuario.getId());
+        formulario.setNombre("Formulario");
+        formulario.setApellido("Admin");
+        formulario.setUsername("formulario@test.com");
+        formulario.setRol(Rol.ADMINISTRADOR);
+        usuarioService.updateUser(formulario);
+
+        // 3. Assert
+        assertThat(reservaRepository.findById(creada.getId())).isPresent();
+        Usuario guardado = usuarioRepository.findById(usuario.getId()).orElseThrow();
+        assertThat(guardado.getPassword()).isEqualTo("clave");
+        assertThat(guardado.getFechaNacimiento()).isEqualTo(LocalDate.of(1990, 5, 4));
+        assertThat(usuarioService.findPrincipal(usuario.getId())).get().extracting(Usuario::getRol).isEqualTo(Rol.ADMINISTRADOR);
+    }
+
+    private Usuario crearUsuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(username);
+        usuario.setPassword("clave");
+        usuario.setNombre("Principal");
+        usuario.setApellido("Test");
+        usuario.setFechaNacimiento(LocalDate.of(1990, 5, 4));
+        usuario.setRol(Rol.ESTANDAR);
+        return usuarioService.createUser(usuario);
+    }
+}
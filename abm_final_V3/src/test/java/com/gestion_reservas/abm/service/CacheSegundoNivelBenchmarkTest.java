@@ -0,0 +1,130 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.AbmApplication;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Rol;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repite el alta de ReservaController.crearReserva (usuario y sala por id, artículos, crearReserva) con la
+ * caché de segundo nivel apagada y prendida, cada una en su propio contexto y base, y compara reservas
+ * por segundo y sentencias por reserva. Se ejecuta solo a pedido:
+ * mvn test -Dtest=CacheSegundoNivelBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CacheSegundoNivelBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSegundoNivelBenchmarkTest.class);
+
+    private static final int RESERVAS = 20_000;
+    private static final int CALENTAMIENTO = 2_000;
+    private static final int USUARIOS = 200;
+    private static final int SALAS = 20;
+
+    private record Resultado(double reservasPorSegundo, double sentenciasPorReserva) {
+    }
+
+    @Test
+    void cacheSegundoNivel_debeAhorrarConsultasEnCadaReserva() throws Exception {
+        // 1. Arrange / 2. Act: la misma carga sin y con caché
+        Resultado sinCache = medir("sin-cache", false);
+        Resultado conCache = medir("con-cache", true);
+
+        log.info("Alta de {} reservas: sin caché {} reservas/s y {} sentencias por reserva; "
+                        + "con caché {} reservas/s y {} sentencias por reserva",
+                RESERVAS, Math.round(sinCache.reservasPorSegundo()), String.format("%.1f", sinCache.sentenciasPorReserva()),
+                Math.round(conCache.reservasPorSegundo()), String.format("%.1f", conCache.sentenciasPorReserva()));
+
+        // 3. Assert
+        assertThat(conCache.sentenciasPorReserva()).isLessThan(sinCache.sentenciasPorReserva());
+    }
+
+    private Resultado medir(String base, boolean conCache) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AbmApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos, para que pisen a application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:" + base + ";DB_CLOSE_DELAY=-1",
+                        "--spring.sql.init.mode=never",
+                        "--historial.archivo.cron=-",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + conCache,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + conCache)) {
+            UsuarioService usuarioService = contexto.getBean(UsuarioService.class);
+            SalaService salaService = contexto.getBean(SalaService.class);
+            ArticuloService articuloService = contexto.getBean(ArticuloService.class);
+            ReservaService reservaService = contexto.getBean(ReservaService.class);
+            EscritorHistorial escritorHistorial = contexto.getBean(EscritorHistorial.class);
+            Statistics estadisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+            List<Long> usuarios = new ArrayList<>();
+            for (int i = 0; i < USUARIOS; i++) {
+                Usuario usuario = new Usuario();
+                usuario.setUsername("benchmark" + i + "@test.com");
+                usuario.setNombre("Usuario" + i);
+                usuario.setApellido("Benchmark");
+                usuario.setRol(Rol.ESTANDAR);
+                usuarios.add(usuarioService.createUser(usuario).getId());
+            }
+            List<Long> salas = new ArrayList<>();
+            List<Long> articulos = new ArrayList<>();
+            for (int i = 0; i < SALAS; i++) {
+                Sala sala = new Sala();
+                sala.setNombre("Sala Benchmark " + i);
+                sala.setCapacidad(10);
+                salaService.save(sala);
+                salas.add(sala.getId());
+                Articulo articulo = new Articulo();
+                articulo.setNombre("Articulo Benchmark " + i);
+                articuloService.save(articulo);
+                articulos.add(articulo.getId());
+            }
+
+            LocalDateTime desde = LocalDateTime.of(2040, 1, 1, 0, 0);
+            reservar(CALENTAMIENTO, 0, desde, usuarios, salas, articulos, usuarioService, salaService, articuloService, reservaService);
+            escritorHistorial.esperarVaciado();
+
+            estadisticas.clear();
+            long comienzo = System.nanoTime();
+            reservar(RESERVAS, CALENTAMIENTO, desde, usuarios, salas, articulos, usuarioService, salaService, articuloService, reservaService);
+            escritorHistorial.esperarVaciado();
+            long nanos = System.nanoTime() - comienzo;
+            return new Resultado(RESERVAS * 1e9 / nanos, (double) estadisticas.getPrepareStatementCount() / RESERVAS);
+        }
+    }
+
+    // Sala y artículo van juntos (el i-ésimo de cada lista), así las reservas no chocan entre sí
+    private void reservar(int cantidad, int primera, LocalDateTime desde, List<Long> usuarios, List<Long> salas, List<Long> articulos,
+                          UsuarioService usuarioService, SalaService salaService, ArticuloService articuloService,
+                          ReservaService reservaService) {
+        for (int i = primera; i < primera + cantidad; i++) {
+            int recurso = i % SALAS;
+            LocalDateTime inicio = desde.plusHours(i / SALAS);
+            Reserva reserva = new Reserva();
+            reserva.setUsuario(usuarioService.findById(usuarios.get(i % USUARIOS)).orElseThrow());
+            reserva.setSala(salaService.findById(salas.get(recurso)).orElseThrow());
+            reserva.setArticulos(new HashSet<>(articuloService.findAllByIds(List.of(articulos.get(recurso)))));
+            reserva.setFechaHoraInicio(inicio);
+            reserva.setFechaHoraFin(inicio.plusHours(1));
+            reservaService.crearReserva(reserva);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.ReservaResumen;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Rol;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ArticuloRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ArticuloService articuloService;
+
+    @Autowired
+    private ArticuloRepository articuloRepository;
+
+    @Autowired
+    private SalaService salaService;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cuandoElAdminEditaUnUsuario_laLecturaSiguienteDebeVerElCambio() {
+        // 1. Arrange: un usuario ya leído, que queda en la caché
+        Usuario usuario = new Usuario();
+        usuario.setUsername("segundo.nivel@test.com");
+        usuario.setPassword("clave");
+        usuario.setNombre("Segundo");
+        usuario.setApellido("Nivel");
+        usuario.setRol(Rol.ESTANDAR);
+        usuarioService.createUser(usuario);
+        usuarioService.findById(usuario.getId());
+        usuarioService.findByUsername("segundo.nivel@test.com");
+        assertThat(entityManagerFactory.getCache().contains(Usuario.class, usuario.getId())).isTrue();
+
+        // Las lecturas repetidas no llegan a la base
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+        usuarioService.findById(usuario.getId());
+        usuarioService.findByUsername("segundo.nivel@test.com");
+        assertThat(estadisticas.getPrepareStatementCount()).isZero();
+        estadisticas.setStatisticsEnabled(false);
+
+        // 2. Act: edición desde el formulario de administración (cambia también el correo)
+        Usuario formulario = usuarioService.findById(usuario.getId()).orElseThrow();
+        formulario.setNombre("Segundo Editado");
+        formulario.setUsername("segundo.editado@test.com");
+        usuarioService.updateUser(formulario);
+
+        // 3. Assert: la entidad y la consulta por correo se ven actualizadas
+        assertThat(usuarioService.findById(usuario.getId())).get().extracting(Usuario::getNombre).isEqualTo("Segundo Editado");
+        assertThat(usuarioService.findByUsername("segundo.nivel@test.com")).isEmpty();
+        assertThat(usuarioService.findByUsername("segundo.editado@test.com")).isPresent();
+
+        usuarioService.deleteById(usuario.getId());
+        assertThat(usuarioService.findById(usuario.getId())).isEmpty();
+    }
+
+    @Test
+    void cuandoSeBorraUnArticulo_ningunaLecturaDebeDevolverlo() {
+        // 1. Arrange: un artículo ya leído por el catálogo y por JPA
+        Articulo articulo = new Articulo();
+        articulo.setNombre("Articulo Segundo Nivel");
+        articuloService.save(articulo);
+        articuloService.findById(articulo.getId());
+        articuloRepository.findById(articulo.getId());
+
+        // 2. Act
+        articuloService.deleteById(articulo.getId());
+
+        // 3. Assert: los artículos solo se guardan en el catálogo, no en la caché de segundo nivel
+        assertThat(entityManagerFactory.getCache().contains(Articulo.class, articulo.getId())).isFalse();
+        assertThat(articuloService.findById(articulo.getId())).isEmpty();
+        assertThat(articuloRepository.findById(articulo.getId())).isEmpty();
+    }
+
+    @Test
+    void cuandoSeEditaUnaSala_todasLasLecturasDebenVerElCambio() {
+        // 1. Arrange: una sala con una reserva de 10 a 11, ya leída por cada camino
+        Usuario usuario = new Usuario();
+        usuario.setUsername("sala.editada@test.com");
+        usuario.setRol(Rol.ESTANDAR);
+        usuarioService.createUser(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Antes");
+        sala.setCapacidad(10);
+        salaService.save(sala);
+
+        LocalDate fecha = LocalDate.of(2034, 7, 3);
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setSala(salaService.findById(sala.getId()).orElseThrow());
+        reserva.setFechaHoraInicio(fecha.atTime(10, 0));
+        reserva.setFechaHoraFin(fecha.atTime(11, 0));
+        reservaService.crearReserva(reserva);
+
+        LocalDateTime libreDesde = fecha.atTime(12, 0);
+        LocalDateTime libreHasta = fecha.atTime(13, 0);
+        salaService.findAll();
+        salaRepository.findById(sala.getId());
+        assertThat(reservaService.buscarSalasLibres(15, libreDesde, libreHasta)).extracting(Sala::getId).doesNotContain(sala.getId());
+
+        // 2. Act: edición desde el formulario de administración
+        Sala formulario = new Sala();
+        formulario.setId(sala.getId());
+        formulario.setNombre("Sala Después");
+        formulario.setCapacidad(20);
+        salaService.save(formulario);
+
+        // 3. Assert: catálogo, JPA, listados, búsqueda por capacidad y disponibilidad del día
+        assertThat(entityManagerFactory.getCache().contains(Sala.class, sala.getId())).isFalse();
+        assertThat(salaService.findById(sala.getId())).get().extracting(Sala::getNombre, Sala::getCapacidad)
+                .containsExactly("Sala Después", 20);
+        assertThat(salaService.findAll()).filteredOn(s -> s.getId().equals(sala.getId()))
+                .extracting(Sala::getNombre).containsExactly("Sala Después");
+        assertThat(salaRepository.findById(sala.getId())).get().extracting(Sala::getNombre).isEqualTo("Sala Después");
+        assertThat(reservaService.listarReservasDeUsuario(usuario.getId()))
+                .extracting(ReservaResumen::salaNombre).containsExactly("Sala Después");
+        assertThat(reservaService.buscarSalasLibres(15, libreDesde, libreHasta)).filteredOn(s -> s.getId().equals(sala.getId()))
+                .extracting(Sala::getNombre).containsExactly("Sala Después");
+        assertThat(reservaService.getDisponibilidadDia(fecha).salas().get(sala.getId())).containsExactly(10);
+    }
+}
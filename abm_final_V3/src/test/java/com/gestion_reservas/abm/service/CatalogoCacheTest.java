@@ -0,0 +1,118 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.EstadisticasCache;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class CatalogoCacheTest {
+
+    @Autowired
+    private SalaService salaService;
+
+    @Autowired
+    private ArticuloService articuloService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void lecturasRepetidas_debenResolverseEnMemoriaHastaQueCambieElCatalogo() {
+        // 1. Arrange: el catálogo ya cargado
+        Sala sala = new Sala();
+        sala.setNombre("Sala Cache");
+        sala.setCapacidad(6);
+        salaService.save(sala);
+        salaService.findAll();
+        EstadisticasCache antes = salaService.estadisticasCache();
+
+        // 2. Act: lecturas del formulario de reserva
+        for (int i = 0; i < 10; i++) {
+            salaService.findAll();
+            salaService.findById(sala.getId());
+        }
+        EstadisticasCache despues = salaService.estadisticasCache();
+
+        // 3. Assert: ninguna llegó a la base; un cambio se ve en la lectura siguiente
+        assertThat(despues.aciertos() - antes.aciertos()).isEqualTo(20);
+        assertThat(despues.fallos()).isEqualTo(antes.fallos());
+
+        Sala editada = new Sala();
+        editada.setId(sala.getId());
+        editada.setNombre("Sala Cache Editada");
+        editada.setCapacidad(12);
+        salaService.save(editada);
+        assertThat(salaService.findById(sala.getId())).get().extracting(Sala::getNombre).isEqualTo("Sala Cache Editada");
+        assertThat(salaService.estadisticasCache().invalidaciones()).isGreaterThan(despues.invalidaciones());
+
+        salaService.deleteById(sala.getId());
+        assertThat(salaService.findAll()).extracting(Sala::getId).doesNotContain(sala.getId());
+    }
+
+    @Test
+    void cuandoSeBorraUnArticulo_noDebeSeguirEnElCatalogo() {
+        // 1. Arrange
+        Articulo articulo = new Articulo();
+        articulo.setNombre("Articulo Cache");
+        articuloService.save(articulo);
+        assertThat(articuloService.findAllByIds(List.of(articulo.getId()))).hasSize(1);
+
+        // 2. Act
+        articuloService.deleteById(articulo.getId());
+
+        // 3. Assert
+        assertThat(articuloService.findById(articulo.getId())).isEmpty();
+        assertThat(articuloService.findAll()).extracting(Articulo::getId).doesNotContain(articulo.getId());
+    }
+
+    @Test
+    void cuandoSeEditaUnaSala_susReservasDebenConservarse() {
+        // 1. Arrange: una sala con una reserva
+        Usuario usuario = new Usuario();
+        usuario.setUsername("cache@test.com");
+        usuario.setNombre("Cache");
+        usuario.setApellido("Test");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Con Reservas");
+        sala.setCapacidad(8);
+        salaService.save(sala);
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setSala(salaService.findById(sala.getId()).orElseThrow());
+        reserva.setFechaHoraInicio(LocalDateTime.of(2036, 2, 1, 10, 0));
+        reserva.setFechaHoraFin(LocalDateTime.of(2036, 2, 1, 11, 0));
+        Reserva creada = reservaService.crearReserva(reserva);
+
+        // 2. Act: el formulario de edición envía una sala sin su lista de reservas
+        Sala formulario = new Sala();
+        formulario.setId(sala.getId());
+        formulario.setNombre("Sala Con Reservas Editada");
+        formulario.setCapacidad(10);
+        salaService.save(formulario);
+
+        // 3. Assert
+        assertThat(reservaRepository.findById(creada.getId())).isPresent();
+    }
+}
@@ -0,0 +1,89 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.RegistroSql;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Apertura de una ventana de reservas: muchos usuarios preguntan lo mismo en el mismo segundo.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rafaga;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.gestion_reservas.abm.repository.RegistroSql"
+})
+class ConsultasDisponibilidadTest {
+
+    private static final int PEDIDOS = 200;
+    private static final int HILOS = 32;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void cuandoLleganMuchasConsultasIguales_noDebeEjecutarseNingunaSentenciaSql() throws Exception {
+        // 1. Arrange: una sala con una reserva de 10 a 12
+        Usuario usuario = new Usuario();
+        usuario.setUsername("rafaga@test.com");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Ráfaga");
+        sala.setCapacidad(30);
+        salaRepository.save(sala);
+
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setSala(sala);
+        reserva.setFechaHoraInicio(fecha.atTime(10, 0));
+        reserva.setFechaHoraFin(fecha.atTime(12, 0));
+        reservaService.crearReserva(reserva);
+
+        long consultasPrevias = reservaService.estadisticasDisponibilidad().consultas();
+        RegistroSql.SENTENCIAS.clear();
+
+        // 2. Act: todos los pedidos salen juntos
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        List<Future<List<Integer>>> respuestas = new ArrayList<>();
+        try {
+            for (int i = 0; i < PEDIDOS; i++) {
+                respuestas.add(hilos.submit(() -> {
+                    largada.await();
+                    return reservaService.getHorariosOcupados(sala.getId(), fecha);
+                }));
+            }
+            largada.countDown();
+            for (Future<List<Integer>> respuesta : respuestas) {
+                // 3. Assert: todos ven la misma ocupación
+                assertThat(respuesta.get()).containsExactly(10, 11);
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        // 3. Assert: ninguna consulta llegó a la base y todas quedaron contadas
+        assertThat(RegistroSql.SENTENCIAS).isEmpty();
+        assertThat(reservaService.estadisticasDisponibilidad().consultas() - consultasPrevias).isEqualTo(PEDIDOS);
+    }
+}
@@ -0,0 +1,128 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.ResultadoReserva;
+import com.gestion_reservas.abm.dto.SolicitudReserva;
+import com.gestion_reservas.abm.indice.IndiceTextoHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.HistorialReservaRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class EscritorHistorialTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Autowired
+    private HistorialReservaRepository historialReservaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Test
+    void cuandoSeConfirmanLasReservas_suHistorialDebeEscribirseEnLotes() throws Exception {
+        // 1. Arrange: más reservas que el tamaño de un lote del escritor
+        Usuario usuario = new Usuario();
+        usuario.setUsername("historial@test.com");
+        usuario.setNombre("Hist");
+        usuario.setApellido("Orial");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Historial");
+        sala.setCapacidad(8);
+        salaRepository.save(sala);
+
+        LocalDateTime inicio = LocalDateTime.of(2032, 1, 5, 0, 0);
+        List<SolicitudReserva> solicitudes = new ArrayList<>();
+        for (int i = 0; i < 450; i++) {
+            solicitudes.add(new SolicitudReserva(usuario.getId(), sala.getId(), inicio.plusHours(i), inicio.plusHours(i + 1), null));
+        }
+
+        // 2. Act
+        List<ResultadoReserva> resultados = reservaService.crearReservasEnLote(solicitudes);
+        escritorHistorial.esperarVaciado();
+
+        // 3. Assert: una entrada por reserva, con el texto armado al momento de reservar
+        Set<Long> reservaIds = resultados.stream().map(ResultadoReserva::reservaId).collect(Collectors.toSet());
+        List<HistorialReserva> historial = historialReservaRepository.findAll().stream()
+                .filter(h -> reservaIds.contains(h.getReservaId()))
+                .collect(Collectors.toList());
+        assertThat(historial).hasSize(450);
+        assertThat(historial.get(0).getUsuarioInfo()).isEqualTo("Hist Orial (historial@test.com)");
+        assertThat(historial.get(0).getSalaInfo()).isEqualTo("Sala Historial (Capacidad: 8)");
+        assertThat(historial.get(0).getArticulosInfo()).isEqualTo("Ninguno");
+    }
+
+    @Test
+    void cuandoLaBaseFallaAlCerrar_elLoteDebeEscribirseDesdeDetener() throws Exception {
+        // 1. Arrange: un escritor aparte cuya escritura falla siempre desde su propio hilo
+        EscritorHistorial escritor = new EscritorHistorial(100, 10, 50, 200);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(50L));
+        TransactionTemplate transacciones = mock(TransactionTemplate.class);
+        AtomicInteger fallidas = new AtomicInteger();
+        List<String> escritoDesde = new ArrayList<>();
+        doAnswer(invocacion -> {
+            if (Thread.currentThread().getName().equals("escritor-historial")) {
+                fallidas.incrementAndGet();
+                throw new IllegalStateException("Base no disponible");
+            }
+            escritoDesde.add(Thread.currentThread().getName());
+            return null;
+        }).when(transacciones).executeWithoutResult(any());
+        ReflectionTestUtils.setField(escritor, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(escritor, "transactionTemplate", transacciones);
+        ReflectionTestUtils.setField(escritor, "diccionarioHistorial", mock(DiccionarioHistorial.class));
+        ReflectionTestUtils.setField(escritor, "indiceTextoHistorial", mock(IndiceTextoHistorial.class));
+        escritor.iniciar();
+
+        List<HistorialReserva> entradas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            HistorialReserva entrada = new HistorialReserva();
+            entrada.setFechaHoraInicio(LocalDateTime.of(2032, 1, 5, 9 + i, 0));
+            entradas.add(entrada);
+        }
+
+        // 2. Act: se encola y se cierra enseguida
+        escritor.encolar(entradas);
+        escritor.detener();
+
+        // 3. Assert: el hilo reintentó hasta el plazo y el lote se escribió después, desde quien cerró
+        assertThat(fallidas.get()).isGreaterThan(1);
+        assertThat(escritoDesde).containsExactly(Thread.currentThread().getName());
+        escritor.esperarVaciado();
+    }
+}
@@ -0,0 +1,67 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.CoincidenciaHistorial;
+import com.gestion_reservas.abm.indice.IndiceTextoHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class HistorialBusquedaTest {
+
+    @Autowired
+    private HistorialReservaService historialReservaService;
+
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Test
+    void busquedaDeTexto_debeOrdenarPorRelevanciaYFiltrarPorUsuario() throws Exception {
+        // 1. Arrange: "Quiroga" aparece como usuario en dos entradas y como nombre de sala en otra
+        escritorHistorial.encolar(List.of(
+                entrada(9_100_001L, "Renata Quiroga (renata@busqueda.com)", "Sala Zafiro (Capacidad: 4)", "Proyector Quasar"),
+                entrada(9_100_002L, "Otro Usuario (otro@busqueda.com)", "Sala Quiroga (Capacidad: 4)", "Ninguno"),
+                entrada(9_100_003L, "Renata Quiroga (renata@busqueda.com)", "Sala Ámbar (Capacidad: 12)", "Ninguno")));
+        escritorHistorial.esperarVaciado();
+
+        // 2. Act
+        List<CoincidenciaHistorial> porApellido = historialReservaService.buscar("QUIRÓGA", 10);
+        List<CoincidenciaHistorial> porPrefijos = historialReservaService.buscar("ren zaf", 10);
+        List<CoincidenciaHistorial> porEmail = historialReservaService.buscar("renata@busq", 10);
+        List<HistorialReserva> filtroAdmin = historialReservaService.findHistorial("quiroga", null, null, null, null, 50).elementos();
+
+        // 3. Assert: coincidir en el usuario pesa más que en la sala; a igual relevancia, primero la más nueva
+        assertThat(porApellido).extracting(c -> c.historial().getReservaId()).containsExactly(9_100_003L, 9_100_001L, 9_100_002L);
+        assertThat(porApellido.get(0).relevancia()).isGreaterThan(porApellido.get(2).relevancia());
+        assertThat(porPrefijos).extracting(c -> c.historial().getReservaId()).containsExactly(9_100_001L);
+        assertThat(porEmail).extracting(c -> c.historial().getReservaId()).containsExactly(9_100_003L, 9_100_001L);
+        // El listado del administrador solo busca en el usuario
+        assertThat(filtroAdmin).extracting(HistorialReserva::getReservaId).containsExactly(9_100_003L, 9_100_001L);
+        // Los términos cortos o presentes en casi todas las entradas no se buscan
+        assertThat(IndiceTextoHistorial.terminos("de la Quiroga capacidad")).containsExactly("quiroga");
+        assertThat(historialReservaService.buscar("r", 10)).isEmpty();
+        assertThat(historialReservaService.buscar("capacidad", 10)).isEmpty();
+        assertThat(historialReservaService.findHistorial("qu", null, null, null, null, 50).elementos()).isEmpty();
+    }
+
+    private static HistorialReserva entrada(long reservaId, String usuarioInfo, String salaInfo, String articulosInfo) {
+        HistorialReserva historial = new HistorialReserva();
+        historial.setReservaId(reservaId);
+        historial.setUsuarioInfo(usuarioInfo);
+        historial.setSalaInfo(salaInfo);
+        historial.setArticulosInfo(articulosInfo);
+        historial.setFechaHoraInicio(LocalDateTime.of(2034, 2, 1, 10, 0));
+        historial.setFechaHoraFin(LocalDateTime.of(2034, 2, 1, 11, 0));
+        historial.setFechaCreacionHistorial(LocalDateTime.now());
+        return historial;
+    }
+}
@@ -0,0 +1,80 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.ConteoHistorial;
+import com.gestion_reservas.abm.dto.EstadisticasHistorial;
+import com.gestion_reservas.abm.dto.SolicitudReserva;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ArticuloRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class HistorialEstadisticasTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private HistorialReservaService historialReservaService;
+
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private ArticuloRepository articuloRepository;
+
+    @Test
+    void estadisticas_debenAgruparPorLosIdsGuardadosEnElHistorial() throws Exception {
+        // 1. Arrange: 6 reservas en una sala, la mitad con un proyector
+        Usuario usuario = new Usuario();
+        usuario.setUsername("estadisticas@test.com");
+        usuario.setNombre("Esta");
+        usuario.setApellido("Dística");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Estadísticas");
+        sala.setCapacidad(5);
+        salaRepository.save(sala);
+        Articulo proyector = new Articulo();
+        proyector.setNombre("Proyector Estadísticas");
+        proyector.setDisponible(true);
+        articuloRepository.save(proyector);
+
+        LocalDateTime inicio = LocalDateTime.of(2035, 4, 2, 9, 0);
+        List<SolicitudReserva> solicitudes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            List<Long> articulos = i % 2 == 0 ? List.of(proyector.getId()) : null;
+            solicitudes.add(new SolicitudReserva(usuario.getId(), sala.getId(), inicio.plusHours(i), inicio.plusHours(i + 1), articulos));
+        }
+        reservaService.crearReservasEnLote(solicitudes);
+        escritorHistorial.esperarVaciado();
+
+        // 2. Act
+        EstadisticasHistorial estadisticas = historialReservaService.estadisticas();
+
+        // 3. Assert
+        assertThat(estadisticas.salas()).contains(new ConteoHistorial(sala.getId(), "Sala Estadísticas", 6));
+        assertThat(estadisticas.usuarios()).contains(new ConteoHistorial(usuario.getId(), "estadisticas@test.com", 6));
+        assertThat(estadisticas.articulos()).contains(new ConteoHistorial(proyector.getId(), "Proyector Estadísticas", 3));
+    }
+}
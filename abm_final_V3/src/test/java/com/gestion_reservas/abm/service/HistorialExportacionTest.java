@@ -0,0 +1,120 @@
+package com.gestion_reservas.abm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestion_reservas.abm.dto.CambiosHistorial;
+import com.gestion_reservas.abm.model.HistorialReserva;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class HistorialExportacionTest {
+
+    private static final long PRIMERA_RESERVA = 7_000_000L;
+    private static final int ENTRADAS = 2_000;
+
+    @Autowired
+    private HistorialReservaService historialReservaService;
+
+    @Autowired
+    private EscritorHistorial escritorHistorial;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportar_debeEscribirUnaEntradaPorLineaEnOrdenDeId() throws Exception {
+        // 1. Arrange: más entradas que el fetch size de la consulta
+        escribirHistorial(PRIMERA_RESERVA, ENTRADAS, LocalDateTime.of(2033, 6, 1, 9, 0));
+
+        // 2. Act
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        historialReservaService.exportar(salida, historialReservaService.ultimoIdEscrito());
+
+        // 3. Assert: cada línea es un objeto JSON completo, con las fechas en ISO como en la API anterior
+        List<JsonNode> exportadas = new ArrayList<>();
+        for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode nodo = objectMapper.readTree(linea);
+            long reservaId = nodo.get("reservaId").asLong();
+            if (reservaId >= PRIMERA_RESERVA && reservaId < PRIMERA_RESERVA + ENTRADAS) {
+                exportadas.add(nodo);
+            }
+        }
+        assertThat(exportadas).hasSize(ENTRADAS);
+        assertThat(exportadas).extracting(nodo -> nodo.get("id").asLong()).isSorted();
+        assertThat(exportadas.get(0).get("salaInfo").asText()).isEqualTo("Sala Export (Capacidad: 6)");
+        assertThat(exportadas.get(0).get("fechaHoraInicio").asText()).isEqualTo("2033-06-01T09:00:00");
+        // El texto repetido en las 2000 entradas se guarda una sola vez
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historial_textos WHERE texto = ?", Long.class,
+                "Sala Export (Capacidad: 6)")).isEqualTo(1L);
+    }
+
+    @Test
+    void cambiosDesdeUnCursor_debenTraerSoloLasEntradasNuevas() throws Exception {
+        // 1. Arrange: un cliente ya sincronizado hasta ahora (incluido lo que otras pruebas dejaron en la cola)
+        escritorHistorial.esperarVaciado();
+        String cursor = null;
+        CambiosHistorial cambios;
+        do {
+            cambios = historialReservaService.cambiosDesde(cursor, HistorialReservaService.MAX_CAMBIOS_POR_PEDIDO);
+            cursor = cambios.cursor();
+        } while (cambios.hayMas());
+        escribirHistorial(8_000_000L, 25, LocalDateTime.of(2033, 9, 1, 9, 0));
+
+        // 2. Act: pide las novedades de a 10
+        List<HistorialReserva> recibidas = new ArrayList<>();
+        List<Boolean> hayMas = new ArrayList<>();
+        do {
+            cambios = historialReservaService.cambiosDesde(cursor, 10);
+            recibidas.addAll(cambios.historial());
+            hayMas.add(cambios.hayMas());
+            cursor = cambios.cursor();
+        } while (cambios.hayMas());
+        CambiosHistorial sinNovedades = historialReservaService.cambiosDesde(cursor, 10);
+
+        // 3. Assert
+        assertThat(recibidas).extracting(HistorialReserva::getReservaId).containsExactlyElementsOf(
+                LongStream.range(8_000_000L, 8_000_025L).boxed().collect(Collectors.toList()));
+        assertThat(hayMas).containsExactly(true, true, false);
+        assertThat(sinNovedades.historial()).isEmpty();
+        assertThat(sinNovedades.cursor()).isEqualTo(cursor);
+        assertThatThrownBy(() -> historialReservaService.cambiosDesde("no-es-un-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void escribirHistorial(long primeraReserva, int cantidad, LocalDateTime inicio) throws InterruptedException {
+        List<HistorialReserva> entradas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            HistorialReserva entrada = new HistorialReserva();
+            entrada.setReservaId(primeraReserva + i);
+            entrada.setUsuarioInfo("Export Ador (export@test.com)");
+            entrada.setSalaInfo("Sala Export (Capacidad: 6)");
+            entrada.setArticulosInfo("Ninguno");
+            entrada.setFechaHoraInicio(inicio.plusHours(i));
+            entrada.setFechaHoraFin(inicio.plusHours(i + 1));
+            entrada.setFechaCreacionHistorial(LocalDateTime.now());
+            entradas.add(entrada);
+        }
+        escritorHistorial.encolar(entradas);
+        escritorHistorial.esperarVaciado();
+    }
+}
@@ -0,0 +1,122 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.model.Reserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ReservaRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Prueba de estrés: muchos hilos intentan reservar las mismas salas y horas al mismo tiempo.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class ReservaConcurrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaConcurrenciaTest.class);
+
+    private static final int SALAS = 4;
+    private static final int HORAS = 24;
+    private static final int INTENTOS_POR_FRANJA = 8;
+    private static final int HILOS = 16;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void reservasConcurrentes_noDebenProducirDobleReserva() throws Exception {
+        // 1. Arrange: un usuario y varias salas
+        Usuario usuario = new Usuario();
+        usuario.setUsername("estres@test.com");
+        usuario.setNombre("Estrés");
+        usuario.setApellido("Test");
+        usuarioRepository.save(usuario);
+
+        List<Sala> salas = new ArrayList<>();
+        for (int i = 0; i < SALAS; i++) {
+            Sala sala = new Sala();
+            sala.setNombre("Sala " + i);
+            sala.setCapacidad(10);
+            salas.add(salaRepository.save(sala));
+        }
+
+        LocalDateTime inicioDelDia = LocalDateTime.of(2030, 3, 1, 0, 0);
+        AtomicInteger creadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+
+        // 2. Act: cada franja (sala, hora) se intenta reservar varias veces en paralelo
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int intento = 0; intento < INTENTOS_POR_FRANJA; intento++) {
+            for (Sala sala : salas) {
+                for (int hora = 0; hora < HORAS; hora++) {
+                    LocalDateTime inicio = inicioDelDia.plusHours(hora);
+                    tareas.add(pool.submit(() -> {
+                        largada.await();
+                        Reserva reserva = new Reserva();
+                        reserva.setUsuario(usuario);
+                        reserva.setSala(sala);
+                        reserva.setFechaHoraInicio(inicio);
+                        reserva.setFechaHoraFin(inicio.plusHours(1));
+                        try {
+                            reservaService.crearReserva(reserva);
+                            creadas.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            rechazadas.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+        }
+
+        long comienzo = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        long milis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - comienzo);
+        pool.shutdown();
+
+        log.info("Estrés de reservas: {} intentos en {} ms ({} reservas/s), {} creadas, {} rechazadas",
+                tareas.size(), milis, tareas.size() * 1000L / Math.max(1, milis), creadas.get(), rechazadas.get());
+
+        // 3. Assert: exactamente una reserva por franja, tanto en memoria como en la base
+        assertThat(creadas.get()).isEqualTo(SALAS * HORAS);
+        assertThat(rechazadas.get()).isEqualTo(SALAS * HORAS * (INTENTOS_POR_FRANJA - 1));
+        for (Sala sala : salas) {
+            for (int hora = 0; hora < HORAS; hora++) {
+                LocalDateTime inicio = inicioDelDia.plusHours(hora);
+                assertThat(reservaRepository.findReservasSolapadas(sala.getId(), inicio, inicio.plusHours(1))).hasSize(1);
+            }
+        }
+    }
+}
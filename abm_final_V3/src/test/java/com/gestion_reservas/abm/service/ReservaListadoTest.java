@@ -0,0 +1,99 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.Pagina;
+import com.gestion_reservas.abm.dto.ReservaResumen;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los listados de reservas no deben hacer una consulta por fila (N+1), sin importar cuántas haya.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listado;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ReservaListadoTest {
+
+    private static final int RESERVAS = 10_000;
+    private static final long PRIMER_ID = 1_000_000L;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listarDiezMilReservas_debeUsarUnaCantidadFijaDeConsultasPorPagina() {
+        // 1. Arrange: 10.000 reservas repartidas entre 10 usuarios y 5 salas, la mitad con artículos
+        jdbcTemplate.batchUpdate("INSERT INTO usuario (id, username, nombre, apellido, rol) VALUES (?, ?, ?, ?, 'ESTANDAR')",
+                filas(10, i -> new Object[]{PRIMER_ID + i, "listado" + i + "@test.com", "Nombre" + i, "Apellido" + i}));
+        jdbcTemplate.batchUpdate("INSERT INTO sala (id, nombre, capacidad) VALUES (?, ?, 10)",
+                filas(5, i -> new Object[]{PRIMER_ID + i, "Sala Listado " + i}));
+        jdbcTemplate.batchUpdate("INSERT INTO articulo (id, nombre, disponible) VALUES (?, ?, TRUE)",
+                filas(2, i -> new Object[]{PRIMER_ID + i, "Artículo " + i}));
+        LocalDateTime inicio = LocalDateTime.of(2040, 1, 1, 8, 0);
+        jdbcTemplate.batchUpdate("INSERT INTO reservas (id, usuario_id, sala_id, fecha_hora_inicio, fecha_hora_fin) VALUES (?, ?, ?, ?, ?)",
+                filas(RESERVAS, i -> new Object[]{PRIMER_ID + i, PRIMER_ID + i % 10, PRIMER_ID + i % 5,
+                        Timestamp.valueOf(inicio.plusHours(i)), Timestamp.valueOf(inicio.plusHours(i + 1))}));
+        jdbcTemplate.batchUpdate("INSERT INTO reserva_articulos (reserva_id, articulo_id) VALUES (?, ?)",
+                filas(RESERVAS / 2, i -> new Object[]{PRIMER_ID + i * 2, PRIMER_ID + i % 2}));
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        // 2. Act: el listado del administrador se recorre por páginas, siguiendo la clave de la última fila
+        List<ReservaResumen> todas = new ArrayList<>();
+        List<Long> consultasPorPagina = new ArrayList<>();
+        Pagina<ReservaResumen> pagina = reservaService.listarReservas(null, null, Pagina.TAMANO_MAXIMO);
+        while (true) {
+            consultasPorPagina.add(estadisticas.getPrepareStatementCount());
+            todas.addAll(pagina.elementos());
+            if (!pagina.haySiguiente()) {
+                break;
+            }
+            estadisticas.clear();
+            ReservaResumen ultima = pagina.ultimo();
+            pagina = reservaService.listarReservas(ultima.fechaHoraInicio(), ultima.id(), Pagina.TAMANO_MAXIMO);
+        }
+        estadisticas.clear();
+        List<ReservaResumen> delUsuario = reservaService.listarReservasDeUsuario(PRIMER_ID);
+        long consultasUsuario = estadisticas.getPrepareStatementCount();
+
+        // 3. Assert: dos consultas por página o listado (filas y artículos), sin saltear ni repetir filas
+        assertThat(todas).hasSize(RESERVAS);
+        assertThat(todas).extracting(ReservaResumen::id).doesNotHaveDuplicates();
+        assertThat(consultasPorPagina).hasSize(RESERVAS / Pagina.TAMANO_MAXIMO).containsOnly(2L);
+        assertThat(delUsuario).hasSize(RESERVAS / 10);
+        assertThat(consultasUsuario).isEqualTo(2);
+
+        ReservaResumen primera = todas.get(0);
+        assertThat(primera.usuarioNombre()).isEqualTo("Nombre0");
+        assertThat(primera.salaNombre()).isEqualTo("Sala Listado 0");
+        assertThat(primera.articulos()).containsExactly("Artículo 0");
+        assertThat(todas.get(1).articulos()).isEmpty();
+    }
+
+    private static List<Object[]> filas(int cantidad, IntFunction<Object[]> fila) {
+        List<Object[]> filas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            filas.add(fila.apply(i));
+        }
+        return filas;
+    }
+}
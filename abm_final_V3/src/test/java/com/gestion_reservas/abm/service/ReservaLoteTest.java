@@ -0,0 +1,73 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.ResultadoReserva;
+import com.gestion_reservas.abm.dto.SolicitudReserva;
+import com.gestion_reservas.abm.model.Articulo;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.ArticuloRepository;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class ReservaLoteTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private ArticuloRepository articuloRepository;
+
+    @Test
+    void altaEnLote_debeInformarElResultadoDeCadaSolicitud() {
+        // 1. Arrange: datos propios de esta prueba
+        Usuario usuario = new Usuario();
+        usuario.setUsername("lote@test.com");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Lote");
+        salaRepository.save(sala);
+        Articulo proyector = new Articulo();
+        proyector.setNombre("Proyector Lote");
+        articuloRepository.save(proyector);
+
+        LocalDateTime lunes = LocalDateTime.of(2031, 3, 3, 10, 0);
+        // Reserva previa que ya ocupa la sala el lunes a las 10:00
+        reservaService.crearReservasEnLote(List.of(
+                new SolicitudReserva(usuario.getId(), sala.getId(), lunes, lunes.plusHours(1), null)));
+
+        // 2. Act
+        List<ResultadoReserva> resultados = reservaService.crearReservasEnLote(List.of(
+                new SolicitudReserva(usuario.getId(), sala.getId(), lunes, lunes.plusHours(1), null),                                      // choca con la previa
+                new SolicitudReserva(usuario.getId(), sala.getId(), lunes.plusHours(1), lunes.plusHours(2), List.of(proyector.getId())),   // libre
+                new SolicitudReserva(usuario.getId(), sala.getId(), lunes.plusMinutes(90), lunes.plusHours(3), null),                      // choca con la anterior del lote
+                new SolicitudReserva(usuario.getId(), 999_999L, lunes, lunes.plusHours(1), null)                                           // sala inexistente
+        ));
+
+        // 3. Assert
+        assertThat(resultados).extracting(ResultadoReserva::estado).containsExactly(
+                ResultadoReserva.Estado.CONFLICTO,
+                ResultadoReserva.Estado.CREADA,
+                ResultadoReserva.Estado.CONFLICTO,
+                ResultadoReserva.Estado.INVALIDA);
+        assertThat(resultados.get(1).reservaId()).isNotNull();
+        assertThat(reservaService.isSalaDisponible(sala.getId(), lunes.plusHours(1), lunes.plusHours(2))).isFalse();
+    }
+}
@@ -1,17 +1,21 @@
 package com.gestion_reservas.abm.service;
 
+import com.gestion_reservas.abm.dto.HorarioLibre;
+import com.gestion_reservas.abm.indice.IndiceDisponibilidad;
 import com.gestion_reservas.abm.model.Articulo;
 import com.gestion_reservas.abm.model.Reserva;
 import com.gestion_reservas.abm.model.Sala;
 import com.gestion_reservas.abm.repository.ReservaRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalAnswers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -29,6 +33,12 @@ class ReservaServiceTest {
     @Mock // También creamos un mock para el servicio de historial.
     private HistorialReservaService historialReservaService;
 
+    @Mock // El índice de disponibilidad decide si la sala y los artículos están libres.
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Spy // El coordinador real: sin transacción activa, libera los locks al terminar cada reserva.
+    private CoordinadorReservas coordinadorReservas = new CoordinadorReservas();
+
     @InjectMocks // Crea una instancia real de ReservaService, pero le inyecta los mocks de arriba.
     private ReservaService reservaService;
 
@@ -42,9 +52,9 @@ class ReservaServiceTest {
         nuevaReserva.setFechaHoraInicio(LocalDateTime.now());
         nuevaReserva.setFechaHoraFin(LocalDateTime.now().plusHours(1));
 
-        // Le decimos al mock qué debe hacer: "Cuando se llame a findReservasSolapadas,
-        // devuelve una lista que contiene una reserva (simulando que la sala está ocupada)".
-        when(reservaRepository.findReservasSolapadas(any(), any(), any())).thenReturn(List.of(new Reserva()));
+        // Le decimos al mock qué debe hacer: "Cuando se pregunte si la sala se solapa con otra reserva,
+        // responde que sí (simulando que la sala está ocupada)".
+        when(indiceDisponibilidad.haySolapamientoSala(any(), any(), any())).thenReturn(true);
 
         // 2. Act & 3. Assert: Ejecutamos el método y verificamos que lanza la excepción esperada.
         assertThrows(IllegalStateException.class, () -> {
@@ -71,11 +81,11 @@ class ReservaServiceTest {
         nuevaReserva.setFechaHoraFin(LocalDateTime.now().plusHours(1));
 
         // Le decimos a los mocks cómo comportarse:
-        // La sala SÍ está disponible (la consulta de solapamiento de salas devuelve una lista vacía)
-        when(reservaRepository.findReservasSolapadas(any(), any(), any())).thenReturn(Collections.emptyList());
+        // La sala SÍ está disponible (el índice no encuentra solapamiento)
+        when(indiceDisponibilidad.haySolapamientoSala(any(), any(), any())).thenReturn(false);
 
-        // Pero el artículo NO está disponible (la consulta de conflicto de artículos devuelve una lista con un ID)
-        when(reservaRepository.findConflictingArticuloIds(any(), any(), any())).thenReturn(List.of(10L));
+        // Pero el artículo NO está disponible (el índice lo encuentra ocupado)
+        when(indiceDisponibilidad.hayArticuloOcupado(any(), any(), any())).thenReturn(true);
 
         // 2. Act & 3. Assert: Verificamos que se lanza la excepción correcta
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
@@ -88,4 +98,36 @@ class ReservaServiceTest {
         // Verificamos que el método para guardar la reserva NUNCA fue llamado
         verify(reservaRepository, never()).save(any(Reserva.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void cuandoElHorarioEstaOcupado_debeSugerirLosProximosHorariosLibres() {
+        // 1. Arrange: un índice real donde la sala está ocupada de 10 a 12 y el artículo 10 (en otra sala) de 13 a 14:30
+        LocalDateTime desde = LocalDateTime.of(2030, 5, 6, 10, 0);
+        IndiceDisponibilidad indice = new IndiceDisponibilidad();
+        indice.registrar(reserva(1L, 1L, desde, desde.plusHours(2)));
+        Reserva conArticulo = reserva(2L, 2L, desde.plusHours(3), desde.plusHours(4).plusMinutes(30));
+        Articulo articulo = new Articulo();
+        articulo.setId(10L);
+        conArticulo.setArticulos(Set.of(articulo));
+        indice.registrar(conArticulo);
+        when(indiceDisponibilidad.finDeConflictos(any(), any(), any(), any())).then(AdditionalAnswers.delegatesTo(indice));
+
+        // 2. Act: se piden cinco franjas de una hora
+        List<HorarioLibre> libres = reservaService.buscarProximosHorarios(1L, List.of(10L), desde, Duration.ofHours(1), 5);
+
+        // 3. Assert: se salta la reserva, el artículo ocupado (redondeando a la hora siguiente) y el cierre de las 18:00
+        assertThat(libres).extracting(HorarioLibre::inicio).containsExactly(
+                desde.withHour(12), desde.withHour(15), desde.withHour(16), desde.withHour(17), desde.plusDays(1).withHour(8));
+    }
+
+    private static Reserva reserva(Long id, Long salaId, LocalDateTime inicio, LocalDateTime fin) {
+        Sala sala = new Sala();
+        sala.setId(salaId);
+        Reserva reserva = new Reserva();
+        reserva.setId(id);
+        reserva.setSala(sala);
+        reserva.setFechaHoraInicio(inicio);
+        reserva.setFechaHoraFin(fin);
+        return reserva;
+    }
+}
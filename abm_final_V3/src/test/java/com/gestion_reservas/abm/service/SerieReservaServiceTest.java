@@ -0,0 +1,149 @@
+package com.gestion_reservas.abm.service;
+
+import com.gestion_reservas.abm.dto.SolicitudReserva;
+import com.gestion_reservas.abm.model.Sala;
+import com.gestion_reservas.abm.model.SerieReserva;
+import com.gestion_reservas.abm.model.Usuario;
+import com.gestion_reservas.abm.repository.SalaRepository;
+import com.gestion_reservas.abm.repository.SerieReservaRepository;
+import com.gestion_reservas.abm.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:integracion;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never"
+})
+class SerieReservaServiceTest {
+
+    @Autowired
+    private SerieReservaService serieReservaService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SalaRepository salaRepository;
+
+    @Autowired
+    private SerieReservaRepository serieReservaRepository;
+
+    @Autowired
+    private SalaService salaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Test
+    void serieSemanal_debeOcuparSoloSusOcurrencias() {
+        // 1. Arrange
+        Usuario usuario = new Usuario();
+        usuario.setUsername("serie@test.com");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Serie");
+        salaRepository.save(sala);
+
+        LocalDate primerLunes = LocalDate.of(2032, 3, 1);
+        LocalDate tercerLunes = primerLunes.plusWeeks(2);
+        // Una reserva suelta que choca con la cuarta ocurrencia
+        reservaService.crearReservasEnLote(List.of(new SolicitudReserva(usuario.getId(), sala.getId(),
+                primerLunes.plusWeeks(3).atTime(9, 30), primerLunes.plusWeeks(3).atTime(10, 30), null)));
+
+        SerieReserva serie = nuevaSerie(usuario, sala, primerLunes);
+        serie.getExcepciones().add(tercerLunes);
+
+        // 2 y 3. La serie entera se evalúa de una vez y se informa la fecha en conflicto
+        IllegalStateException conflicto = assertThrows(IllegalStateException.class, () -> serieReservaService.crearSerie(serie));
+        assertThat(conflicto.getMessage()).contains(primerLunes.plusWeeks(3).toString());
+
+        // Empezando después del conflicto, la serie se crea
+        SerieReserva valida = nuevaSerie(usuario, sala, primerLunes.plusWeeks(4));
+        valida.getExcepciones().add(primerLunes.plusWeeks(5));
+        serieReservaService.crearSerie(valida);
+
+        LocalDateTime ocurrencia = primerLunes.plusWeeks(4).atTime(9, 0);
+        assertThat(reservaService.isSalaDisponible(sala.getId(), ocurrencia, ocurrencia.plusHours(2))).isFalse();
+        assertThat(reservaService.getHorariosOcupados(sala.getId(), ocurrencia.toLocalDate())).containsExactly(9, 10);
+        // La fecha de excepción y los días que no son lunes quedan libres
+        assertThat(reservaService.getHorariosOcupados(sala.getId(), primerLunes.plusWeeks(5))).isEmpty();
+        assertThat(reservaService.isSalaDisponible(sala.getId(), ocurrencia.plusDays(1), ocurrencia.plusDays(1).plusHours(2))).isTrue();
+
+        serieReservaService.deleteById(valida.getId());
+        assertThat(reservaService.isSalaDisponible(sala.getId(), ocurrencia, ocurrencia.plusHours(2))).isTrue();
+    }
+
+    @Test
+    void cuandoSeEditanLaSalaYElUsuario_laSerieDebeSeguirExistiendo() {
+        // 1. Arrange: una serie de la sala y el usuario que después se editan desde el panel de administración
+        Usuario usuario = new Usuario();
+        usuario.setUsername("editar-serie@test.com");
+        usuario.setNombre("Ana");
+        usuario.setPassword("clave");
+        usuarioRepository.save(usuario);
+        Sala sala = new Sala();
+        sala.setNombre("Sala Editable");
+        sala.setCapacidad(8);
+        salaRepository.save(sala);
+        SerieReserva serie = serieReservaService.crearSerie(nuevaSerie(usuario, sala, LocalDate.of(2033, 5, 2)));
+
+        // 2. Act: los formularios llegan con el id y los campos editados, sin las colecciones
+        Sala formularioSala = new Sala();
+        formularioSala.setId(sala.getId());
+        formularioSala.setNombre("Sala Renombrada");
+        formularioSala.setCapacidad(12);
+        salaService.save(formularioSala);
+
+        Usuario formularioUsuario = new Usuario();
+        formularioUsuario.setId(usuario.getId());
+        formularioUsuario.setUsername("editar-serie@test.com");
+        formularioUsuario.setNombre("Ana María");
+        usuarioService.updateUser(formularioUsuario);
+
+        // 3. Assert: los cambios se guardaron y la serie sigue en la base y en el índice
+        assertThat(salaRepository.findById(sala.getId())).get().extracting(Sala::getNombre, Sala::getCapacidad)
+                .containsExactly("Sala Renombrada", 12);
+        assertThat(usuarioRepository.findById(usuario.getId())).get().extracting(Usuario::getNombre, Usuario::getPassword)
+                .containsExactly("Ana María", "clave");
+        assertThat(serieReservaRepository.existsById(serie.getId())).isTrue();
+        LocalDateTime ocurrencia = LocalDate.of(2033, 5, 2).atTime(9, 0);
+        assertThat(reservaService.isSalaDisponible(sala.getId(), ocurrencia, ocurrencia.plusHours(1))).isFalse();
+    }
+
+    @Test
+    void cuandoFaltaLaFechaOLaHoraDeInicio_crearSerieDebeLanzarIllegalArgumentException() {
+        // 1. Arrange: dos series completas salvo por la fecha o la hora de inicio
+        Sala sala = new Sala();
+        sala.setId(1L);
+        SerieReserva sinFecha = nuevaSerie(null, sala, null);
+        SerieReserva sinHora = nuevaSerie(null, sala, LocalDate.of(2032, 3, 1));
+        sinHora.setHoraInicio(null);
+
+        // 2. Act & 3. Assert: se rechazan como datos inválidos, no con un NullPointerException
+        assertThrows(IllegalArgumentException.class, () -> serieReservaService.crearSerie(sinFecha));
+        assertThrows(IllegalArgumentException.class, () -> serieReservaService.crearSerie(sinHora));
+    }
+
+    private SerieReserva nuevaSerie(Usuario usuario, Sala sala, LocalDate fechaInicio) {
+        SerieReserva serie = new SerieReserva();
+        serie.setUsuario(usuario);
+        serie.setSala(sala);
+        serie.setFechaInicio(fechaInicio);
+        serie.setHoraInicio(LocalTime.of(9, 0));
+        serie.setDuracionMinutos(120);
+        serie.setRepeticiones(10);
+        return serie;
+    }
+}
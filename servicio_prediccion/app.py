@@ -1,6 +1,8 @@
 from flask import Flask, jsonify, render_template, url_for
 import requests
 from collections import Counter
+import threading
+import json
 import re
 import os
 import matplotlib
@@ -17,6 +19,8 @@ from matplotlib.dates import MonthLocator, DateFormatter
 app = Flask(__name__)
 app.config['JSON_AS_ASCII'] = False
 HISTORIAL_API_URL = 'http://localhost:8080/api/historial'
+HISTORIAL_CAMBIOS_URL = HISTORIAL_API_URL + '/cambios'
+ENCABEZADO_CURSOR = 'X-Cursor-Historial'
 UMBRAL_ALTA_DEMANDA = 15
 
 # --- Lógica de Gráficos (Existente) ---
@@ -106,28 +110,53 @@ def _generar_grafico_prediccion(historial):
 
     return ruta_relativa_grafico
 
-# --- Lógica Central y de Texto (sin cambios) ---
-def _obtener_y_procesar_datos():
-    # ... (Esta función se mantiene exactamente igual)
-    try:
-        response = requests.get(HISTORIAL_API_URL, timeout=10)
+# --- Lógica Central y de Texto ---
+# Sincronización incremental con el servicio Java: se guarda el cursor de /api/historial/cambios y los
+# agregados ya calculados, y en cada informe solo se piden y suman las entradas nuevas.
+# La primera vez se parte de la exportación completa (que incluye los meses archivados, que /cambios no
+# recorre) y del cursor que viene en su encabezado.
+_sincronizacion = {'cursor': None, 'historial': [], 'salas': Counter(), 'articulos': Counter()}
+_sincronizacion_lock = threading.Lock()
+
+def _acumular(entrada):
+    _sincronizacion['historial'].append(entrada)
+    _sincronizacion['salas'][re.split(r'\s*\(', entrada['salaInfo'])[0]] += 1
+    articulos_str = entrada.get('articulosInfo', '')
+    if articulos_str and articulos_str != 'Ninguno':
+        _sincronizacion['articulos'].update(articulo.strip() for articulo in articulos_str.split(','))
+
+def _cargar_exportacion():
+    with requests.get(HISTORIAL_API_URL, stream=True, timeout=10) as response:
         response.raise_for_status()
-        historial = response.json()
-    except requests.exceptions.RequestException as e:
-        print(f"ERROR: No se pudo conectar al servicio Java. {e}")
-        return None, None, None, {'error': 'El servicio de datos (Java) no está disponible.'}, 503
-    if not historial:
-        return Counter(), Counter(), [], None, 200
-    nombres_salas = [re.split(r'\s*\(', item['salaInfo'])[0] for item in historial]
-    contador_salas = Counter(nombres_salas)
-    lista_articulos = []
-    for item in historial:
-        articulos_str = item.get('articulosInfo', '')
-        if articulos_str and articulos_str != 'Ninguno':
-            articulos_individuales = [articulo.strip() for articulo in articulos_str.split(',')]
-            lista_articulos.extend(articulos_individuales)
-    contador_articulos = Counter(lista_articulos)
-    return contador_salas, contador_articulos, historial, None, 200
+        entradas = [json.loads(linea) for linea in response.iter_lines() if linea]
+        cursor = response.headers[ENCABEZADO_CURSOR]
+    # Se acumula recién con la exportación completa, para no dejar una carga a medias
+    for entrada in entradas:
+        _acumular(entrada)
+    _sincronizacion['cursor'] = cursor
+
+def _obtener_y_procesar_datos():
+    with _sincronizacion_lock:
+        try:
+            if _sincronizacion['cursor'] is None:
+                _cargar_exportacion()
+            hay_mas = True
+            while hay_mas:
+                params = {'cursor': _sincronizacion['cursor']}
+                response = requests.get(HISTORIAL_CAMBIOS_URL, params=params, timeout=10)
+                response.raise_for_status()
+                cambios = response.json()
+                for entrada in cambios['historial']:
+                    _acumular(entrada)
+                # El cursor avanza junto con lo acumulado: si falla una página, la próxima vez se retoma desde ahí
+                _sincronizacion['cursor'] = cambios['cursor']
+                hay_mas = cambios['hayMas']
+        except (requests.exceptions.RequestException, KeyError, ValueError) as e:
+            print(f"ERROR: No se pudo conectar al servicio Java. {e}")
+            return None, None, None, {'error': 'El servicio de datos (Java) no está disponible.'}, 503
+        # Copias, para que otro pedido no modifique lo que se está usando para el informe
+        return (Counter(_sincronizacion['salas']), Counter(_sincronizacion['articulos']),
+                list(_sincronizacion['historial']), None, 200)
 
 def _generar_texto_resumen(contador_salas, contador_articulos, historial):
     # ... (Esta función se mantiene exactamente igual)